@@ -0,0 +1,70 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// One parsed sample document and its compiled plan per document type
+@State(Scope.Benchmark)
+public class BenchmarkDocuments {
+    @Param({"BRD", "UAT", "PVT"})
+    public String docType;
+
+    CheckPlan plan;
+    PDDocument document;
+    VerificationContext context;
+    LogoDetector logoDetector;
+    OcrEngine ocrEngine;
+    String tocText;
+    int tocPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        // the reference is the logo of generated documents, sample files carrying another logo fail the logo check
+        logoDetector = new LogoDetector(CorpusGenerator.logoImage());
+        plan = new TemplateRegistry("classpath:doc-templates/", mapper).find(docType);
+        document = PDDocument.load(sample(docType));
+        context = new VerificationContext(document);
+        // rendering only, nothing is recognized
+        ocrEngine = new OcrEngine(true, "", "eng", 300, 1, 1, Duration.ofSeconds(30));
+        CheckPlan.PageSearch search = plan.getSearches().get(plan.getTocSearch());
+        Helper helper = new Helper(Runnable::run);
+        tocPage = Helper.await(helper.searchPage(search.getStartPage(), search.getMatcher(), "HEADER_TOC", context,
+                search.getRegion()));
+        tocText = helper.ocrProcessResult(context, tocPage, plan.getTocRule().getName(),
+                plan.getTocRule().area(context.pageHeight(tocPage)));
+    }
+
+    // -Ddocverifier.samples=<dir> uses <dir>/<doctype>.pdf when present, a generated document otherwise
+    static byte[] sample(String docType) throws IOException {
+        String samples = System.getProperty("docverifier.samples");
+        if (samples != null) {
+            Path file = Path.of(samples, docType.toLowerCase() + ".pdf");
+            if (Files.exists(file)) {
+                return Files.readAllBytes(file);
+            }
+        }
+        return CorpusGenerator.generate(docType, CorpusSpec.defaults());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ocrEngine.shutdown();
+        document.close();
+    }
+}
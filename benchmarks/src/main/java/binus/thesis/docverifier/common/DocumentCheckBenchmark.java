@@ -0,0 +1,34 @@
+package binus.thesis.docverifier.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Every check of one document, what processBRD/UAT/PVT used to run.
+// The caller thread runs the graph as well as the shared checker pool.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentCheckBenchmark {
+
+    @Benchmark
+    public Map<String, Boolean> processSingleThreaded(BenchmarkDocuments documents) {
+        return new TemplateChecker(documents.plan, Runnable::run, null, null, documents.logoDetector, false)
+                .process(documents.document);
+    }
+
+    @Benchmark
+    public Map<String, Boolean> processOnCheckerPool(BenchmarkDocuments documents) {
+        return new TemplateChecker(documents.plan, Helper.ocrExecutor, null, null, documents.logoDetector, false)
+                .process(documents.document);
+    }
+}
@@ -0,0 +1,65 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Whole verifications under concurrent load on each check executor: every operation parses the
+// upload and runs all checks in a document scope, as a request does. Throughput over all threads
+// is verifications per millisecond, SampleTime reports the p0.99 latency.
+// virtual needs the application installed from a -Pjava21 build and a Java 21 JVM.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(64)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorModeBenchmark {
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"BRD"})
+    public String docType;
+
+    private DocumentExecutors executors;
+    private CheckPlan plan;
+    private LogoDetector logoDetector;
+    private byte[] upload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        executors = new DocumentExecutors(mode, Duration.ofSeconds(30));
+        plan = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper()).find(docType);
+        logoDetector = new LogoDetector(CorpusGenerator.logoImage());
+        upload = BenchmarkDocuments.sample(docType);
+    }
+
+    @Benchmark
+    public Map<String, Boolean> verify() throws IOException {
+        try (PDDocument document = PDDocument.load(upload);
+             DocumentExecutors.DocumentScope scope = executors.open()) {
+            return new TemplateChecker(plan, scope.executor(), null, null, logoDetector, false).process(document);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.template.CheckPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Building blocks of a check. A new context per call, as per request, so page
+// parsing is part of every measurement except the pure text ones.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Benchmark
+    public String ocrProcessResult(BenchmarkDocuments documents) throws IOException {
+        CheckPlan.RegionRule toc = documents.plan.getTocRule();
+        VerificationContext context = new VerificationContext(documents.document);
+        return new Helper(Runnable::run).ocrProcessResult(context, documents.tocPage,
+                toc.getName(), toc.area(context.pageHeight(documents.tocPage)));
+    }
+
+    // OCR input of the table of content region at 300 dpi, the rest of the page is not rasterized
+    @Benchmark
+    public BufferedImage renderRegion(BenchmarkDocuments documents) throws IOException {
+        CheckPlan.RegionRule toc = documents.plan.getTocRule();
+        return documents.ocrEngine.render(documents.document, documents.tocPage,
+                toc.area(documents.context.pageHeight(documents.tocPage)));
+    }
+
+    @Benchmark
+    public Rectangle2D.Double getRectangledArea(BenchmarkDocuments documents) {
+        // first section heading, its page is right after the table of content
+        String title = documents.plan.getRequiredSections().get(0);
+        String next = documents.plan.getRequiredSections().get(1);
+        return new Helper(Runnable::run).getRectangledArea(new VerificationContext(documents.document),
+                documents.tocPage + 1, title, next, false);
+    }
+
+    @Benchmark
+    public Integer searchPage(BenchmarkDocuments documents) throws IOException {
+        CheckPlan.PageSearch search = documents.plan.getSearches().get(documents.plan.getTocSearch());
+        return Helper.await(new Helper(Runnable::run).searchPage(search.getStartPage(), search.getMatcher(),
+                "HEADER_TOC", new VerificationContext(documents.document), search.getRegion()));
+    }
+
+    @Benchmark
+    public List<String> extractSectionTitles(BenchmarkDocuments documents) {
+        return Helper.extractSectionTitles(documents.tocText);
+    }
+
+    @Benchmark
+    public TableOfContent collectContent(BenchmarkDocuments documents) throws IOException {
+        return Helper.await(new TemplateChecker(documents.plan, Runnable::run)
+                .collectContent(new VerificationContext(documents.document), documents.tocPage));
+    }
+}
@@ -0,0 +1,82 @@
+package binus.thesis.docverifier.common;
+
+// Receives the work of one document's checks as it happens. The default
+// methods do nothing, so an unobserved document pays only the calls.
+public interface CheckObserver {
+    CheckObserver NONE = new CheckObserver() {
+    };
+
+    enum RegionSource {
+        TEXT,
+        OCR,
+        CACHE
+    }
+
+    // work on the calling thread belongs to checkId until stageFinished
+    default void stageStarted(String checkId) {
+    }
+
+    default void stageFinished(String checkId, long nanos) {
+    }
+
+    default void regionRead(int page, RegionSource source, long nanos) {
+    }
+
+    default void headingLookup(int page, long nanos) {
+    }
+
+    default void checkCompleted(String checkId, boolean passed, long nanos) {
+    }
+
+    // an observer for work started in the current stage and finished on another thread
+    default CheckObserver detach() {
+        return this;
+    }
+
+    // both observers see every call, this one first
+    default CheckObserver andThen(CheckObserver next) {
+        if (next == null || next == NONE) {
+            return this;
+        }
+        if (this == NONE) {
+            return next;
+        }
+        CheckObserver first = this;
+        return new CheckObserver() {
+            @Override
+            public void stageStarted(String checkId) {
+                first.stageStarted(checkId);
+                next.stageStarted(checkId);
+            }
+
+            @Override
+            public void stageFinished(String checkId, long nanos) {
+                first.stageFinished(checkId, nanos);
+                next.stageFinished(checkId, nanos);
+            }
+
+            @Override
+            public void regionRead(int page, RegionSource source, long nanos) {
+                first.regionRead(page, source, nanos);
+                next.regionRead(page, source, nanos);
+            }
+
+            @Override
+            public void headingLookup(int page, long nanos) {
+                first.headingLookup(page, nanos);
+                next.headingLookup(page, nanos);
+            }
+
+            @Override
+            public void checkCompleted(String checkId, boolean passed, long nanos) {
+                first.checkCompleted(checkId, passed, nanos);
+                next.checkCompleted(checkId, passed, nanos);
+            }
+
+            @Override
+            public CheckObserver detach() {
+                return first.detach().andThen(next.detach());
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.model.ParameterTrace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-check work of one document, only created for requests asking for a trace.
+// A stage runs whole on one thread, so its region reads are attributed through a thread local;
+// a stage run inside another one (a caller-runs executor) hands the thread back to the enclosing
+// stage when it finishes. An OCR read finishing on another thread is reported through the detached observer.
+public class CheckTrace implements CheckObserver {
+    private final ThreadLocal<Frame> current = new ThreadLocal<>();
+    private final ConcurrentHashMap<String, Work> works = new ConcurrentHashMap<>();
+
+    @Override
+    public void stageStarted(String checkId) {
+        current.set(new Frame(work(checkId), current.get()));
+    }
+
+    @Override
+    public void stageFinished(String checkId, long nanos) {
+        work(checkId).busyNanos.addAndGet(nanos);
+        Frame frame = current.get();
+        Frame enclosing = frame == null ? null : frame.enclosing;
+        if (enclosing == null) {
+            current.remove();
+        } else {
+            current.set(enclosing);
+        }
+    }
+
+    @Override
+    public void regionRead(int page, RegionSource source, long nanos) {
+        Work work = currentWork();
+        if (work != null) {
+            work.read(page, source);
+        }
+    }
+
+    @Override
+    public CheckObserver detach() {
+        Work work = currentWork();
+        if (work == null) {
+            return NONE;
+        }
+        return new CheckObserver() {
+            @Override
+            public void regionRead(int page, RegionSource source, long nanos) {
+                work.read(page, source);
+            }
+        };
+    }
+
+    @Override
+    public void headingLookup(int page, long nanos) {
+        Work work = currentWork();
+        if (work != null) {
+            work.pages.add(page);
+        }
+    }
+
+    @Override
+    public void checkCompleted(String checkId, boolean passed, long nanos) {
+        work(checkId).wallNanos = nanos;
+    }
+
+    public Map<String, ParameterTrace> parameters() {
+        Map<String, ParameterTrace> parameters = new LinkedHashMap<>();
+        works.forEach((id, work) -> {
+            List<Integer> pages = new ArrayList<>(work.pages);
+            pages.sort(null);
+            parameters.put(id, new ParameterTrace(TimeUnit.NANOSECONDS.toMillis(work.wallNanos),
+                    TimeUnit.NANOSECONDS.toMillis(work.busyNanos.get()), work.regionReads.get(),
+                    work.cacheHits.get(), pages, false));
+        });
+        return parameters;
+    }
+
+    // a result cache hit did no work for any parameter
+    public static Map<String, ParameterTrace> cached(Collection<String> checkIds) {
+        Map<String, ParameterTrace> parameters = new LinkedHashMap<>();
+        for (String id : checkIds) {
+            parameters.put(id, new ParameterTrace(0, 0, 0, 0, List.of(), true));
+        }
+        return parameters;
+    }
+
+    private Work work(String checkId) {
+        return works.computeIfAbsent(checkId, k -> new Work());
+    }
+
+    private Work currentWork() {
+        Frame frame = current.get();
+        return frame == null ? null : frame.work;
+    }
+
+    private record Frame(Work work, Frame enclosing) {
+    }
+
+    private static class Work {
+        final AtomicLong busyNanos = new AtomicLong();
+        final AtomicInteger regionReads = new AtomicInteger();
+        final AtomicInteger cacheHits = new AtomicInteger();
+        final Set<Integer> pages = ConcurrentHashMap.newKeySet();
+        volatile long wallNanos;
+
+        void read(int page, RegionSource source) {
+            regionReads.incrementAndGet();
+            if (source == RegionSource.CACHE) {
+                cacheHits.incrementAndGet();
+            }
+            pages.add(page);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package binus.thesis.docverifier.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Picks where a document's check graph runs.
+// platform: the shared Helper.ocrExecutor pool (default).
+// virtual: one virtual thread per check task (VirtualThreads, compiled from src/main/java21 by -Pjava21).
+// A build without it stops startup in virtual mode rather than silently running the platform pool.
+@Slf4j
+@Component
+public class DocumentExecutors {
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final Duration closeTimeout;
+
+    public DocumentExecutors(@Value("${docverifier.executor.mode:platform}") String mode,
+                             @Value("${docverifier.executor.close-timeout:PT30S}") Duration closeTimeout) {
+        this.closeTimeout = closeTimeout;
+        Mode selected = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        if (selected == Mode.VIRTUAL && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("docverifier.executor.mode=virtual needs a build with -Pjava21 running on"
+                    + " Java 21, running " + Runtime.version().feature() + "; build with -Pjava21 or use platform");
+        }
+        this.mode = selected;
+        log.info("Check executor mode: {}", this.mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // one scope per document, closing it joins every task forked into it
+    public DocumentScope open() {
+        if (mode == Mode.VIRTUAL) {
+            return new DocumentScope(VirtualThreads.newThreadPerTaskExecutor(), true, closeTimeout);
+        }
+        return new DocumentScope(Helper.ocrExecutor, false, closeTimeout);
+    }
+
+    // The tasks of one document, forked through execute and joined by close, so none outlives the
+    // document. cancel() interrupts the forked tasks still running; a forked task that throws cancels
+    // its siblings and close() rethrows its failure. Tasks forked after a cancel still run so their
+    // futures complete, the checker refuses their work; a task forked after close runs on the caller.
+    public static class DocumentScope implements Executor, AutoCloseable {
+        private final ExecutorService executor;
+        private final boolean owned;
+        private final Duration closeTimeout;
+        // a lock instead of a monitor, a virtual thread waiting in close does not pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition joined = lock.newCondition();
+        private final Set<Thread> running = new HashSet<>();
+        private int forked;
+        private boolean cancelled;
+        private boolean closed;
+        private Throwable failure;
+
+        DocumentScope(ExecutorService executor, boolean owned, Duration closeTimeout) {
+            this.executor = executor;
+            this.owned = owned;
+            this.closeTimeout = closeTimeout;
+        }
+
+        public Executor executor() {
+            return this;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            boolean late;
+            lock.lock();
+            try {
+                late = closed;
+                if (!late) {
+                    forked++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (late) {
+                task.run();
+                return;
+            }
+            try {
+                executor.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                finished(null);
+                throw e;
+            }
+        }
+
+        // interrupts the forked tasks running now, except the caller's own
+        public void cancel() {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                for (Thread thread : running) {
+                    if (thread != Thread.currentThread()) {
+                        thread.interrupt();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run(Runnable task) {
+            Thread thread = Thread.currentThread();
+            lock.lock();
+            try {
+                running.add(thread);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                lock.lock();
+                try {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                cancel();
+            } finally {
+                finished(thread);
+            }
+        }
+
+        private void finished(Thread thread) {
+            lock.lock();
+            try {
+                if (thread != null) {
+                    running.remove(thread);
+                    // a pooled thread does not carry this scope's interrupt into its next task
+                    if (cancelled) {
+                        Thread.interrupted();
+                    }
+                }
+                if (--forked == 0) {
+                    joined.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // waits up to the close timeout for the forked tasks, then interrupts the rest
+        @Override
+        public void close() {
+            boolean timedOut = false;
+            Throwable failed;
+            lock.lock();
+            try {
+                long left = closeTimeout.toNanos();
+                while (forked > 0 && !timedOut) {
+                    if (left <= 0) {
+                        timedOut = true;
+                        log.warn("{} check tasks still running after {}, interrupting them", forked, closeTimeout);
+                        cancel();
+                    } else {
+                        try {
+                            left = joined.awaitNanos(left);
+                        } catch (InterruptedException e) {
+                            cancel();
+                            Thread.currentThread().interrupt();
+                            timedOut = true;
+                        }
+                    }
+                }
+                closed = true;
+                failed = failure;
+            } finally {
+                lock.unlock();
+            }
+            if (owned) {
+                if (timedOut) {
+                    executor.shutdownNow();
+                } else {
+                    executor.shutdown();
+                }
+            }
+            if (failed != null) {
+                throw new IllegalStateException("Check task failed: " + failed.getMessage(), failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.model.DocumentUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Opens an upload per request without a shared temp file.
+// Small files are parsed from memory, larger ones stream in with a bounded
+// in-memory budget and spill the rest to PDFBox scratch files of their own.
+@Slf4j
+@Component
+public class DocumentLoader {
+    private final long inMemoryThreshold;
+    private final long memoryBudget;
+    private final int viewsPerDocument;
+    private final int fontCacheSize;
+    private final FontProgramCache fontPrograms;
+
+    public DocumentLoader(@Value("${docverifier.load.in-memory-threshold:4MB}") DataSize inMemoryThreshold,
+                          @Value("${docverifier.load.memory-budget:2MB}") DataSize memoryBudget,
+                          @Value("${docverifier.load.views-per-document:0}") int viewsPerDocument,
+                          @Value("${docverifier.load.font-cache-size:32}") int fontCacheSize,
+                          FontProgramCache fontPrograms) {
+        this.inMemoryThreshold = inMemoryThreshold.toBytes();
+        this.memoryBudget = memoryBudget.toBytes();
+        this.viewsPerDocument = viewsPerDocument;
+        this.fontCacheSize = fontCacheSize;
+        this.fontPrograms = fontPrograms;
+    }
+
+    // the upload parsed, with private copies for page-parallel reads when views are on
+    public LoadedDocument open(DocumentUpload upload) throws IOException {
+        PDDocument document = load(upload);
+        try {
+            return new LoadedDocument(document, views(upload));
+        } catch (IOException | RuntimeException e) {
+            new LoadedDocument(document, null).close();
+            throw e;
+        }
+    }
+
+    // copies one document may open on top of itself, 0 when views are off or the upload is streamed
+    public int viewsFor(DocumentUpload upload) {
+        boolean inMemory = upload.getContent() instanceof ByteArrayResource || upload.getSize() <= inMemoryThreshold;
+        return viewsPerDocument > 0 && inMemory ? viewsPerDocument : 0;
+    }
+
+    // private copies for page-parallel reads, only for uploads parsed from memory; null when off
+    private DocumentViews views(DocumentUpload upload) throws IOException {
+        if (viewsFor(upload) == 0) {
+            return null;
+        }
+        InputStreamSource content = upload.getContent();
+        if (content instanceof ByteArrayResource bytes) {
+            return new DocumentViews(bytes.getByteArray(), viewsPerDocument, this::resourceCache);
+        }
+        try (InputStream in = content.getInputStream()) {
+            return new DocumentViews(in.readAllBytes(), viewsPerDocument, this::resourceCache);
+        }
+    }
+
+    // verification only reads text: fonts are cached up to font-cache-size, other resources not at all
+    private PDDocument load(DocumentUpload upload) throws IOException {
+        PDDocument document = parse(upload);
+        document.setResourceCache(resourceCache());
+        return document;
+    }
+
+    // per document, lent fonts already parsed for other uploads
+    private ResourceCache resourceCache() {
+        return new TextResourceCache(fontCacheSize, fontPrograms);
+    }
+
+    private PDDocument parse(DocumentUpload upload) throws IOException {
+        InputStreamSource content = upload.getContent();
+        if (content instanceof ByteArrayResource bytes) {
+            return PDDocument.load(bytes.getByteArray());
+        }
+        if (upload.getSize() <= inMemoryThreshold) {
+            try (InputStream in = content.getInputStream()) {
+                return PDDocument.load(in.readAllBytes());
+            }
+        }
+        log.info("Large upload {} bytes, loading with {} bytes memory budget",
+                upload.getSize(), memoryBudget);
+        try (InputStream in = content.getInputStream()) {
+            return PDDocument.load(in, MemoryUsageSetting.setupMixed(memoryBudget));
+        }
+    }
+}
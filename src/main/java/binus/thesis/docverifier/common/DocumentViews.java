@@ -0,0 +1,88 @@
+package binus.thesis.docverifier.common;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Private copies of one document, parsed on demand from the same immutable bytes.
+// A worker borrows a whole copy, so different pages are read in parallel without
+// sharing any PDFBox object. At most max copies exist, later readers wait for one.
+public class DocumentViews implements AutoCloseable {
+    private final byte[] source;
+    private final Supplier<ResourceCache> resourceCache;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PDDocument> idle = new ConcurrentLinkedQueue<>();
+    private final List<PDDocument> opened = new ArrayList<>();
+
+    public DocumentViews(byte[] source, int max, Supplier<ResourceCache> resourceCache) {
+        if (max < 1) {
+            throw new IllegalArgumentException("At least one document view is needed, got " + max);
+        }
+        this.source = source;
+        this.resourceCache = resourceCache;
+        this.permits = new Semaphore(max);
+    }
+
+    public interface Reader<T> {
+        T read(PDDocument view) throws IOException;
+    }
+
+    public <T> T read(Reader<T> reader) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a document view");
+        }
+        PDDocument view = idle.poll();
+        try {
+            if (view == null) {
+                view = open();
+            }
+            return reader.read(view);
+        } finally {
+            if (view != null) {
+                idle.offer(view);
+            }
+            permits.release();
+        }
+    }
+
+    public synchronized int size() {
+        return opened.size();
+    }
+
+    private PDDocument open() throws IOException {
+        PDDocument view = PDDocument.load(source, "", null, null, MemoryUsageSetting.setupMainMemoryOnly());
+        view.setResourceCache(resourceCache.get());
+        synchronized (this) {
+            opened.add(view);
+        }
+        return view;
+    }
+
+    // each copy borrowed its own fonts, they go back once the copy is closed
+    @Override
+    public synchronized void close() {
+        for (PDDocument view : opened) {
+            try {
+                view.close();
+            } catch (IOException ignored) {
+                // read-only copy, nothing to lose
+            }
+            if (view.getResourceCache() instanceof TextResourceCache fonts) {
+                fonts.release();
+            }
+        }
+        opened.clear();
+        idle.clear();
+    }
+}
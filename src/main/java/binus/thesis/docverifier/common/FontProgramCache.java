@@ -0,0 +1,195 @@
+package binus.thesis.docverifier.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Parsed fonts reused across requests. Uploads of one template embed the same
+// fonts, so a font is identified by a hash of its dictionary with the raw font
+// program, widths, encoding and ToUnicode streams. PDFBox reads those streams fully
+// while constructing a font, so a parsed font does not depend on the document it came from.
+// A PDFont is not thread safe (width and ToUnicode memos, glyph tables loaded on first use),
+// so it is lent to one document at a time: a document borrows an idle font of the same key
+// or parses its own, and gives every font back when it is closed. Type 3 fonts draw with
+// document content and are not reused.
+@Component
+public class FontProgramCache {
+    private static final int MAX_DEPTH = 8;
+
+    private final int maxEntries;
+    // idle fonts per key, least recently used key first
+    private final LinkedHashMap<String, ArrayDeque<PDFont>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private int idleCount;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FontProgramCache(@Value("${docverifier.font-cache.max-entries:64}") int maxEntries,
+                            MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        Gauge.builder("docverifier.font.cache.size", this, FontProgramCache::size)
+                .description("Parsed fonts idle for the next document").register(registry);
+        Gauge.builder("docverifier.font.cache.hit.ratio", this, FontProgramCache::hitRatio)
+                .description("Share of font loads answered from the cache").register(registry);
+        FunctionCounter.builder("docverifier.font.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.font.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.font.cache.evictions", evictions, AtomicLong::get).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    // sha-256 of everything PDFBox builds the font from, null for a font that is not shared
+    public String keyOf(COSDictionary font) throws IOException {
+        if (COSName.TYPE3.equals(font.getCOSName(COSName.SUBTYPE))) {
+            return null;
+        }
+        return identity(font);
+    }
+
+    // same hash for any font, Type 3 included: two fonts with one identity map codes to the same text
+    public static String identity(COSDictionary font) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, font, 0, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // an idle font for the caller alone, null when the caller has to parse its own
+    public synchronized PDFont borrow(String key) {
+        ArrayDeque<PDFont> fonts = idle.get(key);
+        PDFont font = fonts == null ? null : fonts.poll();
+        if (font == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        idleCount--;
+        if (fonts.isEmpty()) {
+            idle.remove(key);
+        }
+        hits.incrementAndGet();
+        return font;
+    }
+
+    // the document using font is closed, the next one with the same key may take it
+    public synchronized void giveBack(String key, PDFont font) {
+        if (!isEnabled()) {
+            return;
+        }
+        idle.computeIfAbsent(key, k -> new ArrayDeque<>()).push(font);
+        idleCount++;
+        while (idleCount > maxEntries) {
+            Iterator<Map.Entry<String, ArrayDeque<PDFont>>> eldest = idle.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<PDFont>> entry = eldest.next();
+            entry.getValue().pollLast();
+            idleCount--;
+            evictions.incrementAndGet();
+            if (entry.getValue().isEmpty()) {
+                eldest.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return idleCount;
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private static void update(MessageDigest digest, COSBase base, int depth, Set<COSBase> seen)
+            throws IOException {
+        if (base instanceof COSObject indirect) {
+            base = indirect.getObject();
+        }
+        // a container reached twice (or a cycle) is hashed once, scalars may repeat
+        boolean container = base instanceof COSDictionary || base instanceof COSArray;
+        if (base == null || depth > MAX_DEPTH || (container && !seen.add(base))) {
+            update(digest, "-");
+            return;
+        }
+        if (base instanceof COSDictionary dictionary) {
+            update(digest, "<<");
+            List<COSName> keys = new ArrayList<>(dictionary.keySet());
+            keys.sort(null);
+            for (COSName key : keys) {
+                update(digest, key.getName());
+                COSBase value = dictionary.getDictionaryObject(key);
+                // subset prefixes are random per document, the glyph data below tells subsets apart
+                if ((COSName.BASE_FONT.equals(key) || COSName.FONT_NAME.equals(key)) && value instanceof COSName name) {
+                    update(digest, name.getName().replaceFirst("^[A-Z]{6}\\+", ""));
+                } else {
+                    update(digest, value, depth + 1, seen);
+                }
+            }
+            update(digest, ">>");
+            if (dictionary instanceof COSStream stream) {
+                // encoded bytes, the font program is not decompressed for the key
+                try (InputStream in = stream.createRawInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                digest.update((byte) 0);
+            }
+        } else if (base instanceof COSArray array) {
+            update(digest, "[");
+            for (int i = 0; i < array.size(); i++) {
+                update(digest, array.get(i), depth + 1, seen);
+            }
+            update(digest, "]");
+        } else if (base instanceof COSString string) {
+            digest.update(string.getBytes());
+            digest.update((byte) 0);
+        } else if (base instanceof COSName name) {
+            update(digest, "/" + name.getName());
+        } else {
+            update(digest, base.toString());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
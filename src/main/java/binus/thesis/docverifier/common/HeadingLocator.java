@@ -0,0 +1,72 @@
+package binus.thesis.docverifier.common;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Locates headings on a page with one pass over its text lines.
+// Positions are snapped to the old 20pt window moved 10pt at a time from y=30,
+// so the section rectangles stay the same as the sliding scan produced.
+public final class HeadingLocator {
+    public static final double START_X = -68.0;
+    public static final double START_Y = 30.0;
+    public static final double STEP = 10.0;
+    public static final double WINDOW_HEIGHT = 20.0;
+    private static final double BAND_HEIGHT = 10_000.0;
+
+    private HeadingLocator() {
+    }
+
+    // window y of the first line containing each key, missing keys are absent
+    public static Map<String, Double> locate(PageGlyphIndex index, float pageWidth,
+                                             Collection<String> keys) throws IOException {
+        Map<String, Double> found = new HashMap<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        List<String> pending = new ArrayList<>(keys);
+        KeywordMatcher matcher = KeywordMatcher.of(pending);
+        BitSet located = new BitSet(pending.size());
+        Rectangle2D band = new Rectangle2D.Double(START_X, START_Y, pageWidth, BAND_HEIGHT);
+        for (PageGlyphIndex.TextLine line : index.linesIn(band)) {
+            if (located.cardinality() == pending.size()) {
+                break;
+            }
+            BitSet inLine = matcher.find(line.getText());
+            inLine.andNot(located);
+            for (int i = inLine.nextSetBit(0); i >= 0; i = inLine.nextSetBit(i + 1)) {
+                found.put(pending.get(i), windowFor(line.getBottom()));
+            }
+            located.or(inLine);
+        }
+        return found;
+    }
+
+    // first window [y, y + 20) on the 10pt grid that holds the line baseline
+    static double windowFor(float bottom) {
+        long step = (long) Math.floor((bottom - START_Y - WINDOW_HEIGHT) / STEP) + 1;
+        return START_Y + Math.max(0, step) * STEP;
+    }
+
+    // area under a heading, endY is only given when the next heading is on the same page
+    public static Rectangle2D.Double sectionArea(double startY, Double endY, float pageWidth) {
+        double newY_s = startY + STEP;
+        double finalY = newY_s;
+        double finalHeight = WINDOW_HEIGHT;
+        if (endY != null) {
+            double newY_e = endY + STEP;
+            if ((newY_e - newY_s) <= 30) {
+                finalY = finalY + 10; // scroll down position
+                finalHeight = WINDOW_HEIGHT + 10;
+            } else {
+                finalHeight = newY_e - newY_s - 10;
+            }
+        }
+        return new Rectangle2D.Double(START_X, finalY + 10, pageWidth, finalHeight);
+    }
+}
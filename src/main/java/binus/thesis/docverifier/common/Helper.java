@@ -1,18 +1,21 @@
 package binus.thesis.docverifier.common;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.text.PDFTextStripperByArea;
 import org.springframework.stereotype.Component;
 
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,373 +23,407 @@ import java.util.regex.Pattern;
 @Component
 public class Helper {
 
-    private static Double PAGE_HEIGHT = 792.0; // default
-    public static void setPageHeight(Double height) {
-        PAGE_HEIGHT = height;
-    }
-    public static Double getPageHeight() {
-        return PAGE_HEIGHT;
-    }
     public static final ExecutorService ocrExecutor =
             Executors.newFixedThreadPool(
                     Math.max(4, Runtime.getRuntime().availableProcessors() * 2)
             );
-    private final ConcurrentHashMap<Integer, ReentrantLock> pageLocks = new ConcurrentHashMap<>();
+    protected final Executor executor;
+    private final OcrEngine ocrEngine;
+    private final RegionTextCache regionCache;
+    protected CheckObserver observer = CheckObserver.NONE;
+    // check of the stage running on this thread, a step resumed after OCR runs as that check again
+    private final ThreadLocal<String> currentStage = new ThreadLocal<>();
+    // guards runningStages and the stage admission in beforeStage. A lock and condition instead of
+    // a monitor, so a virtual thread waiting here does not pin its carrier
+    protected final ReentrantLock stageLock = new ReentrantLock();
+    private final Condition stagesDone = stageLock.newCondition();
+    // stage bodies running now
+    private int runningStages;
 
 
 
-    protected static final int PAGE_COVER = 1;
-    public enum BRD_CONTENT {
-        INTRODUCTION,
-        BACKGROUND,
-        FUNCTIONAL_REQUIREMENT,
-        NON_FUNCTIONAL_REQUIREMENT,
-        SERVICE_CHARACTERISTICS,
-        RISK_ASSESSMENT,
-        ROLES_AND_RESPONSIBILITIES_MATRIX,
-        APPENDIX
+    public Helper() {
+        this(ocrExecutor);
+    }
+
+    // the check graph of one document runs on this executor
+    public Helper(Executor executor) {
+        this(executor, null, null);
     }
-    enum PVT_CONTENT {
-        INTRODUCTION,
-        SCOPE,
-        PLAN_PVT,
-        PVT_SCENARIO,
-        PERFORMANCE_TEST,
-        ROLLBACK_PLAN,
-        PVT_RESULT,
-        SUMMARY
+
+    // pages without a text layer are read by the OCR engine when one is given,
+    // region texts are shared with other requests through the cache when one is given
+    public Helper(Executor executor, OcrEngine ocrEngine, RegionTextCache regionCache) {
+        this.executor = executor;
+        this.ocrEngine = ocrEngine;
+        this.regionCache = regionCache;
     }
-    enum UAT_CONTENT {
-        INTRODUCTION,
-        SCOPE_EVALUATION,
-        PLAN_TESTING,
-        ROLLBACK_TEST,
-        BUDGET_DETAIL,
-        RESULT_OF_TEST,
-        USER_FEEDBACK_AND_SUGGESTION,
-        SUMMARY_OF_TESTING,
-        LESSON_LEARNED
+
+    // set before the checks start, region reads and heading lookups are reported to it
+    public Helper observe(CheckObserver observer) {
+        this.observer = observer == null ? CheckObserver.NONE : observer;
+        return this;
     }
 
-    protected String ocrProcessResult(PDDocument document, int page,
+    protected static final int PAGE_COVER = 1;
+    private static final Pattern SECTION_TITLE = Pattern.compile("(\\d+(\\.\\d+)*\\s+([A-Za-z0-9 ]+))");
+
+    // page geometry and page caches live in the context, one per document.
+    // Waits for OCR on the calling thread, check stages use regionText instead
+    protected String ocrProcessResult(VerificationContext context, int page,
                                     String regionName, Rectangle2D region) throws IOException {
-        //String text = "";
-        ReentrantLock lock = pageLocks.computeIfAbsent(page, k -> new ReentrantLock());
-        lock.lock();
-        //synchronized(document) {
+        return await(regionText(context, page, regionName, region));
+    }
+
+    // complete at once for a text layer or the region cache, a scanned page completes on the
+    // OCR executor. A read that fails completes exceptionally
+    protected CompletableFuture<String> regionText(VerificationContext context, int page,
+                                                   String regionName, Rectangle2D region) {
         try {
-            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
-            stripper.setSortByPosition(true);
-            stripper.addRegion(regionName, region);
-            stripper.extractRegions(document.getPage(page - 1));
-            return stripper.getTextForRegion(regionName).trim();
-        } //}
-        finally {
-            lock.unlock();
+            if (regionCache == null || !regionCache.isEnabled()) {
+                return extractText(context, page, region);
+            }
+            long start = System.nanoTime();
+            String key = regionCache.keyOf(pageKey(context, page), region);
+            String text = regionCache.get(key);
+            if (text != null) {
+                observer.regionRead(page, CheckObserver.RegionSource.CACHE, System.nanoTime() - start);
+                return CompletableFuture.completedFuture(text);
+            }
+            return extractText(context, page, region).thenApply(extracted -> {
+                regionCache.put(key, extracted);
+                return extracted;
+            });
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    protected Boolean validateLogo (PDDocument document, String type) {
-        Boolean logoValid = validateArea(document, PAGE_COVER, "LOGO",
-                new Rectangle2D.Double(-68.0, getPageHeight() - 608.16 - 167.7, 200.7, 167.7));
-        Boolean titleValid = validateArea(document, PAGE_COVER, "TITLE_" + type,
-                new Rectangle2D.Double(-68.0, getPageHeight() - 298.4 - 300.1, 612.0, 300.1));
-        return logoValid && titleValid;
-
-//        CompletableFuture<Boolean> logoValid =
-//                CompletableFuture.supplyAsync(() ->
-//                        validateArea(document, PAGE_COVER, "LOGO",
-//                                new Rectangle2D.Double(
-//                                        -68.0,
-//                                        getPageHeight() - 608.16 - 167.7,
-//                                        200.7,
-//                                        167.7)),
-//                        ocrExecutor);
-//        CompletableFuture<Boolean> titleValid =
-//                CompletableFuture.supplyAsync(() ->
-//                                validateArea(document, PAGE_COVER, "TITLE_" + type,
-//                                        new Rectangle2D.Double(
-//                                                -68.0,
-//                                                getPageHeight() - 298.4 - 300.1,
-//                                                612.0,
-//                                                300.1)),
-//                        ocrExecutor);
-//        return logoValid.join() && titleValid.join();
+    protected CompletableFuture<String> extractText(VerificationContext context, int page, Rectangle2D region)
+            throws IOException {
+        long start = System.nanoTime();
+        PageGlyphIndex index = pageIndex(context, page);
+        if (index.hasText() || ocrEngine == null || !ocrEngine.isEnabled()) {
+            String text = index.textIn(region);
+            observer.regionRead(page, CheckObserver.RegionSource.TEXT, System.nanoTime() - start);
+            return CompletableFuture.completedFuture(text);
+        }
+        // the read is reported by the thread that finishes it, still as work of this stage
+        CheckObserver reporter = observer.detach();
+        return recognize(context, page, region).whenComplete((text, e) ->
+                reporter.regionRead(page, CheckObserver.RegionSource.OCR, System.nanoTime() - start));
     }
 
-    protected Rectangle2D.Double getRectangledArea(PDDocument document,
-                                                   Integer startPage,
-                                                   String startKey,
-                                                   String endKey,
-                                                   Boolean isAtSamePage) {
-        float maxWidth = 0;
-        Double heightToCheck = null;
-        Double finalY = null;
-        Double finalHeight = null;
+    // scanned page: render the region while holding the page, recognize it on the OCR executor
+    protected CompletableFuture<String> recognize(VerificationContext context, int page, Rectangle2D region)
+            throws IOException {
+        BufferedImage image = context.readPage(page, (document, pdPage) -> ocrEngine.render(document, page, region));
+        return ocrEngine.recognize(image);
+    }
 
-        //log.info("[OC] startPage: {} | startKey: {} | endKey: {}", startPage,startKey, endKey);
+    protected static <T> T await(CompletableFuture<T> future) throws IOException {
         try {
-            // ocr start from 0
-            PDRectangle rect = document.getPage(startPage-1).getMediaBox();
-            //log.info("Page [{}] : width = {} points, height = {} points",
-            //        startPage, rect.getWidth(), rect.getHeight());
-            maxWidth = rect.getWidth();
-            //maxHeight = rect.getHeight();
-
-            Double x = -68.0; //start point x
-            Double y = 30.00; //start point y [44.02]
-            Double newY_s = y, newY_e = y;
-            String text_s = "", text_e = "";
-            heightToCheck = 20.00; //height of regular font
-
-            // 1. periksa posisi startKey
-            do {
-                text_s = ocrProcessResult(document, startPage, startKey,
-                        new Rectangle2D.Double(x, newY_s, maxWidth, heightToCheck));
-                newY_s += 10;
-            } while (!text_s.toUpperCase().contains(startKey.toUpperCase()));
-            // 1.2. jadikan acuan Y & Height
-            finalY = newY_s;
-            finalHeight = heightToCheck;
-
-            // 2. apakah startKey dan endKey di page yang sama ?
-            if (isAtSamePage) {
-                // 2.1. iya di page yg sama, coba cari posisi end nya!
-                do {
-                    text_e = ocrProcessResult(document, startPage, endKey,
-                            new Rectangle2D.Double(x, newY_e, maxWidth, heightToCheck));
-                    newY_e += 10;
-                } while (!text_e.toUpperCase().contains(endKey.toUpperCase()));
-                // titik Y tetap di start
-                finalY = newY_s;
-                if ((newY_e - newY_s) <= 30) { // heightToCheck + 10 [30 ok!]
-                    //log.info("[CHECK POINT] {} in the same page with CLOSE distance", startKey);
-                    finalY = finalY + 10; // scroll down position
-                    finalHeight = heightToCheck + 10; //30
-                } else {
-                    finalHeight =  newY_e - newY_s - 10;
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // page work done inside the stage is reported as work of the check
+    protected <T> T stage(String checkId, Stage<T> body) {
+        stageLock.lock();
+        try {
+            beforeStage();
+            runningStages++;
+        } finally {
+            stageLock.unlock();
+        }
+        String outer = currentStage.get();
+        currentStage.set(checkId);
+        long start = System.nanoTime();
+        observer.stageStarted(checkId);
+        try {
+            return body.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            observer.stageFinished(checkId, System.nanoTime() - start);
+            if (outer == null) {
+                currentStage.remove();
+            } else {
+                currentStage.set(outer);
+            }
+            stageLock.lock();
+            try {
+                if (--runningStages == 0) {
+                    stagesDone.signalAll();
                 }
+            } finally {
+                stageLock.unlock();
             }
-            // kalau beda, yaudah pake posisi startKey + content dibawahnya saja.
-            // yg di return itu area content dibawah title nya
-            return new Rectangle2D.Double(x, finalY + 10, maxWidth, finalHeight); // + 10 OK
-        } catch (Exception e) {
-            //e.printStackTrace();
-            log.info("Something wrong at getRectangledArea: {}", e.getMessage());
-            return null;
         }
     }
-    
-    protected Boolean isAtSamePage(Object currentPage, Object nextPage){
-        return currentPage.equals(nextPage);
+
+    // called under the stage lock before every stage, throws to refuse it
+    protected void beforeStage() {
     }
-//
 
-    public Boolean detailCriteriaOfRegion(String regionName,
-                                          String textCaptured) {
-        //additional check
-        return switch(regionName) {
-            case "TITLE_BRD" -> textCaptured.toUpperCase()
-                    .contains("BUSINESS REQUIREMENT DEFINITION");
-            case "TITLE_PVT" -> textCaptured.toUpperCase()
-                    .contains("PRODUCTION VERIFICATION TEST");
-            case "TITLE_UAT" -> textCaptured.toUpperCase()
-                    .contains("USER ACCEPTANCE TEST");
-            case "CONTENT_BRD" -> checkAllContentBRD(textCaptured);
-            case "CONTENT_UAT" -> checkAllContentUAT(textCaptured);
-            case "CONTENT_PVT" -> checkAllContentPVT(textCaptured);
-            default -> true;
-        };
+    // returns once no stage body is running
+    protected void awaitStages() {
+        stageLock.lock();
+        try {
+            while (runningStages > 0) {
+                stagesDone.awaitUninterruptibly();
+            }
+        } finally {
+            stageLock.unlock();
+        }
     }
 
-    public Boolean checkAllContentBRD(String textCaptured) {
-        //log.info("[1] checkAllContentBRD | textCaptured: {}", textCaptured);
-        List<String> onListText = extractSectionTitles(textCaptured);
-        //log.info("[1a] checkAllContentBRD | onListText: {}", onListText);
-        for (BRD_CONTENT content : BRD_CONTENT.values()) {
-            String contentAsText = content.name()
-                    .replace("_", " ");
-            boolean found = false;
-            int size = onListText.size();
-            for (int i = 0; i < size; i++){
-                if (onListText
-                        .get(i).trim()
-                        .equals(contentAsText)) {
-                    found = true;
-                    //log.info("[2a] checkAllContentBRD | onListText: {} FOUND", contentAsText);
-                    break;
-                }
+    // a stage of checkId on the executor, its result may still wait for OCR
+    protected <T> CompletableFuture<T> async(String checkId, Stage<CompletableFuture<T>> body) {
+        return CompletableFuture.supplyAsync(() -> stage(checkId, body), executor)
+                .thenCompose(Function.identity());
+    }
+
+    // a stage of checkId on the executor once value is there
+    protected <T, R> CompletableFuture<R> after(CompletableFuture<T> value, String checkId,
+                                                StageFunction<T, CompletableFuture<R>> next) {
+        return value.thenComposeAsync(v -> stage(checkId, () -> next.apply(v)), executor);
+    }
+
+    // next step of the running stage: on this thread when value is already there, otherwise
+    // a new stage of the same check on the executor, so no checker thread waits for OCR
+    protected <T, R> CompletableFuture<R> then(CompletableFuture<T> value,
+                                               StageFunction<T, CompletableFuture<R>> next) {
+        if (value.isDone() && !value.isCompletedExceptionally()) {
+            return apply(next, value.join());
+        }
+        String checkId = currentStage.get();
+        return value.thenComposeAsync(v -> checkId == null ? apply(next, v) : stage(checkId, () -> next.apply(v)),
+                executor);
+    }
+
+    private static <T, R> CompletableFuture<R> apply(StageFunction<T, CompletableFuture<R>> next, T value) {
+        try {
+            return next.apply(value);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // page content stream is parsed once, every region is a lookup afterwards
+    protected PageGlyphIndex pageIndex(VerificationContext context, int page) throws IOException {
+        PageGlyphIndex index = context.pageIndexes.get(page);
+        if (index != null) {
+            return index;
+        }
+        ReentrantLock lock = context.pageLock(page);
+        lock.lock();
+        try {
+            index = context.pageIndexes.get(page);
+            if (index == null) {
+                index = context.readPage(page, (document, pdPage) -> PageGlyphIndex.build(pdPage));
+                context.pageIndexes.put(page, index);
             }
-            if (!found) {
-                //log.warn("[2b] checkAllContentBRD | '{}' NOT FOUND in section list", contentAsText);
-                return false;
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // identity of the page content, hashed once per document
+    protected String pageKey(VerificationContext context, int page) throws IOException {
+        String key = context.pageKeys.get(page);
+        if (key != null) {
+            return key;
+        }
+        ReentrantLock lock = context.pageLock(page);
+        lock.lock();
+        try {
+            key = context.pageKeys.get(page);
+            if (key == null) {
+                key = context.readPage(page, (document, pdPage) -> regionCache.pageKey(pdPage, context.fontKeys));
+                context.pageKeys.put(page, key);
             }
+            return key;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
-    public Boolean checkAllContentPVT(String textCaptured) {
-        List<String> onListText = extractSectionTitles(textCaptured);
-        for (PVT_CONTENT content : PVT_CONTENT.values()) {
-            String contentAsText = content.name()
-                    .replace("_", " ");
-            boolean found = false;
-            int size = onListText.size();
-            for (int i = 0; i < size; i++){
-                if (onListText.get(i).trim().equals(contentAsText)) {
-                    found = true;
-                    break;
-                }
+    // all TOC headings of a page are located together and kept for the other section checks
+    protected SectionLayout sectionLayout(VerificationContext context, TableOfContent tableOfContent,
+                                          int page) throws IOException {
+        SectionLayout layout = context.sectionLayouts.get(page);
+        if (layout != null) {
+            return layout;
+        }
+        ReentrantLock lock = context.pageLock(page);
+        lock.lock();
+        try {
+            layout = context.sectionLayouts.get(page);
+            if (layout == null) {
+                long start = System.nanoTime();
+                layout = SectionLayout.build(pageIndex(context, page), page, context.pageWidth(page), tableOfContent);
+                context.sectionLayouts.put(page, layout);
+                observer.headingLookup(page, System.nanoTime() - start);
             }
-            if (!found) {return false;}
+            return layout;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
-    public Boolean checkAllContentUAT(String textCaptured) {
-        List<String> onListText = extractSectionTitles(textCaptured);
-        for (UAT_CONTENT content : UAT_CONTENT.values()) {
-            String contentAsText = content.name()
-                    .replace("_", " ");
-            boolean found = false;
-            int size = onListText.size();
-            for (int i = 0; i < size; i++){
-                if (onListText.get(i).trim().equals(contentAsText)) {
-                    found = true;
-                    break;
+    protected Rectangle2D.Double getRectangledArea(VerificationContext context,
+                                                   Integer startPage,
+                                                   String startKey,
+                                                   String endKey,
+                                                   Boolean isAtSamePage) {
+        //log.info("[OC] startPage: {} | startKey: {} | endKey: {}", startPage,startKey, endKey);
+        try {
+            float maxWidth = context.pageWidth(startPage);
+
+            // 1. periksa posisi startKey (dan endKey kalau di page yang sama)
+            long start = System.nanoTime();
+            Map<String, Double> headings = HeadingLocator.locate(pageIndex(context, startPage), maxWidth,
+                    isAtSamePage ? List.of(startKey, endKey) : List.of(startKey));
+            observer.headingLookup(startPage, System.nanoTime() - start);
+            Double startY = headings.get(startKey);
+            if (startY == null) {
+                log.info("Heading {} not found at page {}", startKey, startPage);
+                return null;
+            }
+            Double endY = null;
+            if (isAtSamePage) {
+                endY = headings.get(endKey);
+                if (endY == null) {
+                    log.info("Heading {} not found at page {}", endKey, startPage);
+                    return null;
                 }
             }
-            if (!found) {return false;}
+            // yg di return itu area content dibawah title nya
+            return HeadingLocator.sectionArea(startY, endY, maxWidth);
+        } catch (Exception e) {
+            //e.printStackTrace();
+            log.info("Something wrong at getRectangledArea: {}", e.getMessage());
+            return null;
         }
-        return true;
+    }
+    
+    protected Boolean isAtSamePage(int currentPage, int nextPage){
+        return currentPage == nextPage;
+    }
+//
+
+    // every required section title has to be one of the TOC titles
+    public Boolean checkAllContent(String textCaptured, Collection<String> requiredSections) {
+        return new HashSet<>(extractSectionTitles(textCaptured)).containsAll(requiredSections);
     }
 
     public static List<String> extractSectionTitles(String textCaptured) {
         List<String> sectionTitles = new ArrayList<>();
-        String regex = "(\\d+(\\.\\d+)*\\s+([A-Za-z0-9 ]+))";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(textCaptured.toUpperCase());
+        Matcher matcher = SECTION_TITLE.matcher(textCaptured);
         while (matcher.find()) {
-            sectionTitles.add(matcher
-                    .group(3)
-                    .replaceAll("^[\\d\\.]+", "")
-                    .replaceAll("^\\s+", "")
-                    .trim()
-            );
+            // drop leading numbers of the title, the capture holds letters, digits and spaces only
+            String title = matcher.group(3);
+            int start = 0;
+            while (start < title.length() && Character.isDigit(title.charAt(start))) {
+                start++;
+            }
+            sectionTitles.add(title.substring(start).trim().toUpperCase(Locale.ROOT));
         }
         return sectionTitles;
     }
 
-    protected Boolean validateEachContent(PDDocument document, List<Map<Object, Object>> tocData,
-                                        String startKey, String endKey) {
-        try {
-            List<Map<Object, Object>> listOfContent = new ArrayList<>();
-            boolean isCollecting = false;
-            // special case for latest section
-            if (endKey.isBlank() || endKey == null) {
-                endKey = startKey;
-            }
+    // a read error propagates, only what the document shows decides the result
+    protected CompletableFuture<Boolean> validateEachContent(VerificationContext context,
+                                                             TableOfContent tableOfContent,
+                                                             String startKey, String endKey) throws IOException {
+        // get all content between start and end key
+        return validateEntries(context, tableOfContent, tableOfContent.span(startKey, endKey), 0);
+    }
 
-            // get all content between start and end key
-            for (Map<Object, Object> entry : tocData) {
-                String title = (String) entry.get("title");
-                if (!isCollecting && title.toUpperCase()
-                        .contains(startKey.toUpperCase())) {
-                    isCollecting = true;
-                }
-                if (isCollecting) {
-                    if ((startKey != endKey) &&
-                            (title.toUpperCase()
-                            .contains(endKey.toUpperCase()))) {
-                        break;
-                    }
-                    listOfContent.add(entry);
-                }
-            }
-            List<Boolean> validations = new ArrayList<>();
-            int size = listOfContent.size();
-            for (int i = 0; i < size; i++) {
-                Map<Object, Object> current = listOfContent.get(i);
-                Map<Object, Object> next = (i + 1 < listOfContent.size()) ?
-                        listOfContent.get(i + 1) : listOfContent.get(i);
-                Rectangle2D.Double area = getRectangledArea(
-                        document,
-                        (Integer) current.get("page"),
-                        (String) current.get("title"),
-                        (String) next.get("title"),
+    // entries one after another, the first empty section decides
+    private CompletableFuture<Boolean> validateEntries(VerificationContext context, TableOfContent tableOfContent,
+                                                      List<TableOfContent.Entry> listOfContent, int i)
+            throws IOException {
+        int size = listOfContent.size();
+        if (i == size) {
+            return CompletableFuture.completedFuture(true);
+        }
+        TableOfContent.Entry current = listOfContent.get(i);
+        TableOfContent.Entry next = (i + 1 < size) ?
+                listOfContent.get(i + 1) : current;
+        // the table points past the end of the document
+        if (current.getPage() < 1 || current.getPage() > context.getPageCount()) {
+            log.info("Section {} listed at page {} of a {} page document", current.getTitle(),
+                    current.getPage(), context.getPageCount());
+            return CompletableFuture.completedFuture(false);
+        }
+        Rectangle2D.Double area = sectionLayout(context, tableOfContent, current.getPage())
+                .area(current.getTitle(),
+                        next.getTitle(),
                         isAtSamePage(
-                                current.get("page"),
-                                next.get("page")
+                                current.getPage(),
+                                next.getPage()
                         )
                 );
-                Boolean result = validateArea(
-                        document,
-                        (Integer) current.get("page"),
-                        (String) current.get("title"),
-                        area);
-                validations.add(result);
-            }
-            return validations.stream().allMatch(valid -> valid);
-        } catch (Exception e) {
-            log.info("Something wrong at validateEachContent: {}", e.getMessage());
-            return false;
+        if (area == null) {
+            log.info("Heading {} not found at page {}", current.getTitle(), current.getPage());
+            return CompletableFuture.completedFuture(false);
         }
+        return then(validateArea(context, current.getPage(), current.getTitle(), area), valid -> valid
+                ? validateEntries(context, tableOfContent, listOfContent, i + 1)
+                : CompletableFuture.completedFuture(false));
     }
 
 
-    protected Boolean validateArea(PDDocument document, int page,
-                                 String regionName, Rectangle2D region) {
-        boolean isValid;
-        try {
-            String text = ocrProcessResult(document,
-                    page, regionName, region);
-            //log.info("[CHECK HERE 1] content for region [{}] => {}", regionName, text);
-            isValid = !text.isEmpty();
-            //log.info("[CHECK HERE 2] validateArea for region [{}] => {}", regionName, isValid);
-            if (isValid) {
-                return detailCriteriaOfRegion(regionName, text);
-            }
-            return isValid;
-        } catch (IOException e) {
-            log.info("Exception at validateArea: {}",
-                    e.getMessage());
-            return false;
-        } catch (Exception ex) {
-            log.info("Exception at validateArea: {} | {}",
-                    ex.getCause(), ex.getMessage());
-            return false;
+    protected CompletableFuture<Boolean> validateArea(VerificationContext context, int page,
+                                                      String regionName, Rectangle2D region) {
+        return regionText(context, page, regionName, region)
+                .thenApply(text -> isValidRegionText(regionName, text));
+    }
 
-        }
+    protected Boolean isValidRegionText(String regionName, String text) {
+        return !text.isEmpty();
     }
 
-    protected Integer searchPage(Integer possiblePage,
-                               String keyWord, String regionName,
-                               PDDocument document,
-                               Rectangle2D positionTitle) {
-        Integer resultPage;
-        String text;
-        Boolean checkerStatus;
-        Integer maxRange = 5;
-        try {
-            do {
-                text = ocrProcessResult(document, possiblePage, regionName, positionTitle);
-                checkerStatus = pageKeywordCheck(text, keyWord);
-                if (checkerStatus) {break;}
-                possiblePage++;
-            }
-            while (possiblePage <= maxRange);
-        } catch (IOException e) {
-            log.info("Something wrong while searchPage: {}", e.getMessage());
+    // first page from possiblePage up to page 5 showing the keyword, null when none does
+    protected CompletableFuture<Integer> searchPage(Integer possiblePage,
+                                                    KeywordMatcher keyWord, String regionName,
+                                                    VerificationContext context,
+                                                    Rectangle2D positionTitle) {
+        int maxRange = Math.min(5, context.getPageCount());
+        if (possiblePage > maxRange) {
+            log.info("{} not found up to page {}", regionName, maxRange);
+            return CompletableFuture.completedFuture(null);
         }
-        //log.info("[OC] {} found at page {}", keyWord, possiblePage);
-        resultPage = possiblePage;
-        return resultPage;
+        return then(regionText(context, possiblePage, regionName, positionTitle), text ->
+                pageKeywordCheck(text, keyWord)
+                        ? CompletableFuture.completedFuture(possiblePage)
+                        : searchPage(possiblePage + 1, keyWord, regionName, context, positionTitle));
     }
     
     protected Boolean pageKeywordCheck(String text,
-                                     String keyWord){
-        return !text.isEmpty() &&
-                text.toUpperCase().contains(keyWord.toUpperCase());
+                                     KeywordMatcher keyWord){
+        return !text.isEmpty() && keyWord.containsAny(text);
+    }
+
+    @FunctionalInterface
+    protected interface Stage<T> {
+        T run() throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface StageFunction<T, R> {
+        R apply(T value) throws IOException;
     }
 
 }
@@ -0,0 +1,174 @@
+package binus.thesis.docverifier.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+// Case-insensitive Aho-Corasick automaton over a fixed set of keywords.
+// Built once, every scan is one table lookup per character and allocates
+// nothing unless the caller asks which keywords were found.
+public final class KeywordMatcher {
+    private static final int[] NONE = new int[0];
+
+    private final List<String> keywords;
+    // transition table, state * alphabetSize + symbol
+    private final int[] delta;
+    private final int alphabetSize;
+    // symbol of each upper-case char up to the highest keyword char, -1 for others
+    private final int[] symbols;
+    // keywords ending at each state, following failure links
+    private final int[][] outputs;
+
+    private KeywordMatcher(List<String> keywords, int[] delta, int alphabetSize,
+                           int[] symbols, int[][] outputs) {
+        this.keywords = keywords;
+        this.delta = delta;
+        this.alphabetSize = alphabetSize;
+        this.symbols = symbols;
+        this.outputs = outputs;
+    }
+
+    public static KeywordMatcher of(String... keywords) {
+        return of(List.of(keywords));
+    }
+
+    public static KeywordMatcher of(Collection<String> keywords) {
+        List<String> upper = new ArrayList<>(keywords.size());
+        int maxChar = 0;
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            // per char, the same folding the scan applies, whatever the default locale
+            String k = upperCase(keyword);
+            upper.add(k);
+            for (int i = 0; i < k.length(); i++) {
+                maxChar = Math.max(maxChar, k.charAt(i));
+            }
+        }
+        int[] symbols = new int[maxChar + 1];
+        Arrays.fill(symbols, -1);
+        int alphabetSize = 0;
+        for (String k : upper) {
+            for (int i = 0; i < k.length(); i++) {
+                char c = k.charAt(i);
+                if (symbols[c] < 0) {
+                    symbols[c] = alphabetSize++;
+                }
+            }
+        }
+
+        // trie
+        List<int[]> next = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        next.add(newRow(alphabetSize));
+        ends.add(new ArrayList<>());
+        for (int p = 0; p < upper.size(); p++) {
+            String k = upper.get(p);
+            int state = 0;
+            for (int i = 0; i < k.length(); i++) {
+                int s = symbols[k.charAt(i)];
+                if (next.get(state)[s] < 0) {
+                    next.get(state)[s] = next.size();
+                    next.add(newRow(alphabetSize));
+                    ends.add(new ArrayList<>());
+                }
+                state = next.get(state)[s];
+            }
+            ends.get(state).add(p);
+        }
+
+        // failure links breadth first, turning the trie into a full transition table
+        int states = next.size();
+        int[] delta = new int[states * Math.max(1, alphabetSize)];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < alphabetSize; s++) {
+            int child = next.get(0)[s];
+            delta[s] = Math.max(child, 0);
+            if (child > 0) {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        int[][] outputs = new int[states][];
+        outputs[0] = NONE;
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> own = ends.get(state);
+            int[] inherited = outputs[fail[state]];
+            int[] out = new int[own.size() + inherited.length];
+            for (int i = 0; i < own.size(); i++) {
+                out[i] = own.get(i);
+            }
+            System.arraycopy(inherited, 0, out, own.size(), inherited.length);
+            outputs[state] = out.length == 0 ? NONE : out;
+            for (int s = 0; s < alphabetSize; s++) {
+                int child = next.get(state)[s];
+                if (child > 0) {
+                    fail[child] = delta[fail[state] * alphabetSize + s];
+                    delta[state * alphabetSize + s] = child;
+                    queue.add(child);
+                } else {
+                    delta[state * alphabetSize + s] = delta[fail[state] * alphabetSize + s];
+                }
+            }
+        }
+        return new KeywordMatcher(List.copyOf(upper), delta, alphabetSize, symbols, outputs);
+    }
+
+    private static String upperCase(String keyword) {
+        StringBuilder upper = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            upper.append(Character.toUpperCase(keyword.charAt(i)));
+        }
+        return upper.toString();
+    }
+
+    private static int[] newRow(int size) {
+        int[] row = new int[size];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsAll(CharSequence text) {
+        return find(text).cardinality() == keywords.size();
+    }
+
+    // indexes of the keywords occurring in text
+    public BitSet find(CharSequence text) {
+        BitSet found = new BitSet(keywords.size());
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            for (int keyword : outputs[state]) {
+                found.set(keyword);
+            }
+        }
+        return found;
+    }
+
+    private int step(int state, char c) {
+        char upper = Character.toUpperCase(c);
+        int symbol = upper < symbols.length ? symbols[upper] : -1;
+        return symbol < 0 ? 0 : delta[state * alphabetSize + symbol];
+    }
+}
@@ -0,0 +1,35 @@
+package binus.thesis.docverifier.common;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+
+// One parsed upload with its private views, if any. Closing it closes every copy
+// and only then gives the fonts they parsed back to the cross-document font cache.
+public class LoadedDocument implements AutoCloseable {
+    @Getter
+    private final PDDocument document;
+    // null when views are off for this upload
+    @Getter
+    private final DocumentViews views;
+
+    LoadedDocument(PDDocument document, DocumentViews views) {
+        this.document = document;
+        this.views = views;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (views != null) {
+                views.close();
+            }
+        } finally {
+            document.close();
+            if (document.getResourceCache() instanceof TextResourceCache fonts) {
+                fonts.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package binus.thesis.docverifier.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Logo check on the cover image itself instead of on text. The page content is
+// walked only to find where images are drawn; just the images overlapping the
+// logo area are decoded and compared by a 64 bit difference hash.
+// Without a reference logo the check only asks for an image drawn over the logo area.
+@Slf4j
+@Component
+public class LogoDetector {
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    public static final String DEFAULT_REFERENCE = "classpath:logo/reference.png";
+
+    // null when no reference is configured
+    private final Long referenceHash;
+
+    // a configured reference that cannot be read stops startup instead of passing every image
+    @Autowired
+    public LogoDetector(@Value("${docverifier.logo.reference:" + DEFAULT_REFERENCE + "}") String reference,
+                        ResourceLoader resourceLoader) throws IOException {
+        if (reference == null || reference.isBlank()) {
+            log.warn("No reference logo configured, the logo check only looks for an image in the logo area");
+            this.referenceHash = null;
+            return;
+        }
+        Resource resource = resourceLoader.getResource(reference);
+        if (!resource.exists()) {
+            throw new IllegalStateException("Reference logo " + reference + " not found");
+        }
+        BufferedImage image;
+        try (InputStream in = resource.getInputStream()) {
+            image = ImageIO.read(in);
+        }
+        if (image == null) {
+            throw new IllegalStateException("Reference logo " + reference + " is not a readable image");
+        }
+        this.referenceHash = differenceHash(image);
+        log.info("Reference logo {} loaded, hash {}", reference, Long.toHexString(referenceHash));
+    }
+
+    public LogoDetector(BufferedImage reference) {
+        this.referenceHash = differenceHash(reference);
+    }
+
+    // without a reference any image over the logo area passes
+    public static LogoDetector presenceOnly() {
+        return new LogoDetector();
+    }
+
+    private LogoDetector() {
+        this.referenceHash = null;
+    }
+
+    public boolean hasReference() {
+        return referenceHash != null;
+    }
+
+    // area in the same coordinates as the text regions: rotated crop box, top left origin
+    public boolean matches(PDPage page, Rectangle2D area, int maxDistance) throws IOException {
+        ImageLocator locator = new ImageLocator(VerificationContext.displayTransform(page), area);
+        locator.processPage(page);
+        if (!hasReference()) {
+            return !locator.candidates.isEmpty();
+        }
+        for (PDImageXObject image : locator.candidates) {
+            int distance = Long.bitCount(differenceHash(image.getImage()) ^ referenceHash);
+            if (distance <= maxDistance) {
+                return true;
+            }
+            log.info("Image in logo area differs from the reference by {} bits", distance);
+        }
+        return false;
+    }
+
+    // each bit tells whether a pixel is brighter than its right neighbour on a 9x8 grey thumbnail
+    static long differenceHash(BufferedImage source) {
+        BufferedImage thumbnail = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // transparent logos are compared as printed on white paper
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, HASH_WIDTH, HASH_HEIGHT);
+            graphics.drawImage(source, 0, 0, HASH_WIDTH, HASH_HEIGHT, null);
+        } finally {
+            graphics.dispose();
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = thumbnail.getRaster().getSample(x, y, 0);
+                int right = thumbnail.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    // tracks the transformation matrix and remembers images drawn over the area, without decoding any
+    private static class ImageLocator extends PDFStreamEngine {
+        private final AffineTransform display;
+        private final Rectangle2D area;
+        private final List<PDImageXObject> candidates = new ArrayList<>();
+
+        ImageLocator(AffineTransform display, Rectangle2D area) {
+            this.display = display;
+            this.area = area;
+            addOperator(new Concatenate());
+            addOperator(new SetMatrix());
+            addOperator(new Save());
+            addOperator(new Restore());
+            addOperator(new DrawObject());
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName name
+                    && getResources().isImageXObject(name)) {
+                PDXObject xObject = getResources().getXObject(name);
+                if (xObject instanceof PDImageXObject image && overlapsArea()) {
+                    candidates.add(image);
+                }
+                return;
+            }
+            super.processOperator(operator, operands);
+        }
+
+        // images fill the unit square of the current matrix, taken to the frame of the area
+        private boolean overlapsArea() {
+            Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+            AffineTransform toArea = new AffineTransform(display);
+            toArea.concatenate(ctm.createAffineTransform());
+            return toArea.createTransformedShape(new Rectangle2D.Double(0, 0, 1, 1)).getBounds2D().intersects(area);
+        }
+    }
+}
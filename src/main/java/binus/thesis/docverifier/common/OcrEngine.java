@@ -0,0 +1,191 @@
+package binus.thesis.docverifier.common;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Tesseract fallback for pages without a text layer. Only the asked region is rasterized:
+// the bitmap covers the region, drawing is clipped to it and images outside it are not decoded,
+// while the page's text and vector operators are still walked. Recognition runs on its own pool-size threads behind a bounded queue,
+// so scanned uploads never hold checker threads while they wait for Tesseract.
+@Slf4j
+@Component
+public class OcrEngine {
+    private final boolean enabled;
+    private final String datapath;
+    private final String language;
+    private final float dpi;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    // idle instances, created on first use and kept for the next region
+    private final ConcurrentLinkedQueue<Tesseract> idle = new ConcurrentLinkedQueue<>();
+
+    public OcrEngine(@Value("${docverifier.ocr.enabled:true}") boolean enabled,
+                     @Value("${docverifier.ocr.datapath:}") String datapath,
+                     @Value("${docverifier.ocr.language:eng}") String language,
+                     @Value("${docverifier.ocr.dpi:300}") int dpi,
+                     @Value("${docverifier.ocr.pool-size:2}") int poolSize,
+                     @Value("${docverifier.ocr.queue-capacity:64}") int queueCapacity,
+                     @Value("${docverifier.ocr.timeout:PT30S}") Duration timeout) {
+        this.enabled = enabled;
+        this.datapath = datapath;
+        this.language = language;
+        this.dpi = dpi;
+        this.timeout = timeout;
+        int threads = Math.max(1, poolSize);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // renders the region of one page to a bitmap, pages share the document so callers serialize this per page.
+    // The region is in the coordinates of the text regions: rotated crop box, top left origin
+    public BufferedImage render(PDDocument document, int page, Rectangle2D region) throws IOException {
+        PDRectangle box = VerificationContext.displaySize(document.getPage(page - 1));
+        Rectangle2D clip = region.createIntersection(
+                new Rectangle2D.Double(0, 0, box.getWidth(), box.getHeight()));
+        if (clip.isEmpty()) {
+            return null;
+        }
+        float scale = dpi / 72f;
+        int width = Math.max(1, (int) Math.ceil(clip.getWidth() * scale));
+        int height = Math.max(1, (int) Math.ceil(clip.getHeight() * scale));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, width, height);
+            Rectangle2D bitmap = new Rectangle2D.Double(0, 0, width, height);
+            graphics.clip(bitmap);
+            // page drawn shifted so only the clip lands on the bitmap, the renderer applies
+            // the crop box offset and the rotation the region is measured in
+            graphics.translate(-clip.getX() * scale, -clip.getY() * scale);
+            new RegionRenderer(document, bitmap).renderPageToGraphics(page - 1, graphics, scale);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    // completes on the OCR executor. A full queue fails at once, a region not recognized within
+    // the timeout (queue wait included) fails with a TimeoutException and is never started late
+    public CompletableFuture<String> recognize(BufferedImage image) {
+        if (image == null) {
+            return CompletableFuture.completedFuture("");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> doOcr(image), executor)
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IOException("OCR queue full", e));
+        }
+    }
+
+    private String doOcr(BufferedImage image) {
+        Tesseract tesseract = idle.poll();
+        try {
+            if (tesseract == null) {
+                tesseract = newTesseract();
+            }
+            return tesseract.doOCR(image).trim();
+        } catch (TesseractException | LinkageError e) {
+            // a broken instance is dropped instead of returned to the pool
+            Tesseract broken = tesseract;
+            tesseract = null;
+            log.info("OCR failed{}: {}", broken == null ? " to start" : "", e.getMessage());
+            throw new UncheckedIOException(new IOException("OCR failed: " + e.getMessage(), e));
+        } finally {
+            if (tesseract != null) {
+                idle.offer(tesseract);
+            }
+        }
+    }
+
+    // skips images drawn outside the bitmap, they would be decoded only to be clipped away
+    private static class RegionRenderer extends PDFRenderer {
+        private static final Rectangle2D UNIT = new Rectangle2D.Double(0, 0, 1, 1);
+        private final Rectangle2D bitmap;
+
+        RegionRenderer(PDDocument document, Rectangle2D bitmap) {
+            super(document);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+            return new PageDrawer(parameters) {
+                private Graphics pageGraphics;
+
+                @Override
+                public void drawPage(Graphics g, PDRectangle pageSize) throws IOException {
+                    pageGraphics = g;
+                    super.drawPage(g, pageSize);
+                }
+
+                @Override
+                public void drawImage(PDImage pdImage) throws IOException {
+                    // only on the page itself, groups and patterns draw on their own graphics
+                    if (getGraphics() == pageGraphics) {
+                        AffineTransform toBitmap = getGraphics().getTransform();
+                        toBitmap.concatenate(getGraphicsState().getCurrentTransformationMatrix()
+                                .createAffineTransform());
+                        if (!toBitmap.createTransformedShape(UNIT).intersects(bitmap)) {
+                            return;
+                        }
+                    }
+                    super.drawImage(pdImage);
+                }
+            };
+        }
+    }
+
+    private Tesseract newTesseract() {
+        Tesseract tesseract = new Tesseract();
+        if (!datapath.isBlank()) {
+            tesseract.setDatapath(datapath);
+        }
+        tesseract.setLanguage(language);
+        tesseract.setPageSegMode(ITessAPI.TessPageSegMode.PSM_AUTO);
+        tesseract.setTessVariable("user_defined_dpi", String.valueOf((int) dpi));
+        return tesseract;
+    }
+}
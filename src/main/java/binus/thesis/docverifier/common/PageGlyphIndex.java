@@ -0,0 +1,380 @@
+package binus.thesis.docverifier.common;
+
+import lombok.Value;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.BeginText;
+import org.apache.pdfbox.contentstream.operator.text.EndText;
+import org.apache.pdfbox.contentstream.operator.text.MoveText;
+import org.apache.pdfbox.contentstream.operator.text.MoveTextSetLeading;
+import org.apache.pdfbox.contentstream.operator.text.NextLine;
+import org.apache.pdfbox.contentstream.operator.text.SetCharSpacing;
+import org.apache.pdfbox.contentstream.operator.text.SetFontAndSize;
+import org.apache.pdfbox.contentstream.operator.text.SetTextHorizontalScaling;
+import org.apache.pdfbox.contentstream.operator.text.SetTextLeading;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRenderingMode;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRise;
+import org.apache.pdfbox.contentstream.operator.text.SetWordSpacing;
+import org.apache.pdfbox.contentstream.operator.text.ShowText;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextAdjusted;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLine;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLineAndSpace;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDSimpleFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Positioned glyphs of one page, captured with a single content stream pass into
+// primitive arrays: origin, advance and space width per glyph plus its unicode.
+// Region text is looked up through a grid of 10pt rows and laid out the way
+// PDFTextStripper sorts by position: lines top to bottom, words split on gaps.
+public class PageGlyphIndex {
+    private static final float ROW_HEIGHT = 10f;
+    private static final float LINE_TOLERANCE = 3f;
+    // same word break rule as PDFTextStripper's spacing and average character tolerances
+    private static final float SPACING_TOLERANCE = 0.5f;
+    private static final float AVERAGE_CHAR_TOLERANCE = 0.3f;
+
+    private final int size;
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] widths;
+    private final float[] spaceWidths;
+    private final String text;
+    // unicode of glyph i is text[starts[i], starts[i + 1])
+    private final int[] starts;
+    private final int[][] rows;
+    private final int firstRow;
+    private volatile Lines lastLines;
+
+    private PageGlyphIndex(GlyphCollector glyphs) {
+        this.size = glyphs.size;
+        this.xs = glyphs.xs;
+        this.ys = glyphs.ys;
+        this.widths = glyphs.widths;
+        this.spaceWidths = glyphs.spaceWidths;
+        this.text = glyphs.text.toString();
+        this.starts = glyphs.starts;
+        if (size == 0) {
+            this.rows = new int[0][];
+            this.firstRow = 0;
+            return;
+        }
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        this.firstRow = row(minY);
+        int rowCount = row(maxY) - firstRow + 1;
+        int[] counts = new int[rowCount];
+        for (int i = 0; i < size; i++) {
+            counts[row(ys[i]) - firstRow]++;
+        }
+        int[][] grid = new int[rowCount][];
+        for (int r = 0; r < rowCount; r++) {
+            grid[r] = new int[counts[r]];
+        }
+        int[] filled = new int[rowCount];
+        for (int i = 0; i < size; i++) {
+            int r = row(ys[i]) - firstRow;
+            if (!overlapsEarlier(grid[r], filled[r], i)) {
+                grid[r][filled[r]++] = i;
+            }
+        }
+        for (int r = 0; r < rowCount; r++) {
+            if (filled[r] < counts[r]) {
+                grid[r] = Arrays.copyOf(grid[r], filled[r]);
+            }
+        }
+        this.rows = grid;
+    }
+
+    public static PageGlyphIndex build(PDPage page) throws IOException {
+        GlyphCollector glyphs = new GlyphCollector(page);
+        if (page.hasContents()) {
+            glyphs.processPage(page);
+        }
+        return new PageGlyphIndex(glyphs);
+    }
+
+    public boolean hasText() {
+        return size > 0;
+    }
+
+    // same selection rule as PDFTextStripperByArea: glyph origin inside region
+    public String textIn(Rectangle2D region) {
+        return format(glyphsIn(region));
+    }
+
+    // text lines inside a band, top to bottom, kept for the last band asked
+    public List<TextLine> linesIn(Rectangle2D band) {
+        Lines last = lastLines;
+        if (last != null && band.equals(last.band)) {
+            return last.lines;
+        }
+        int[] inBand = sortedBy(ys, glyphsIn(band));
+        List<TextLine> result = new ArrayList<>();
+        int start = 0;
+        int count = inBand.length;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || ys[inBand[i]] - ys[inBand[start]] > LINE_TOLERANCE) {
+                result.add(new TextLine(format(Arrays.copyOfRange(inBand, start, i)),
+                        ys[inBand[start]], ys[inBand[i - 1]]));
+                start = i;
+            }
+        }
+        List<TextLine> lines = Collections.unmodifiableList(result);
+        lastLines = new Lines(new Rectangle2D.Double(band.getX(), band.getY(), band.getWidth(),
+                band.getHeight()), lines);
+        return lines;
+    }
+
+    // lines by baseline, glyphs of a line left to right, a space wherever the gap is wider than a space
+    private String format(int[] selected) {
+        if (selected.length == 0) {
+            return "";
+        }
+        int[] byY = sortedBy(ys, selected);
+        StringBuilder out = new StringBuilder(selected.length + 16);
+        int start = 0;
+        for (int i = 1; i <= byY.length; i++) {
+            if (i == byY.length || ys[byY[i]] - ys[byY[start]] > LINE_TOLERANCE) {
+                if (start > 0) {
+                    out.append('\n');
+                }
+                appendLine(out, sortedBy(xs, Arrays.copyOfRange(byY, start, i)));
+                start = i;
+            }
+        }
+        return out.toString().trim();
+    }
+
+    private void appendLine(StringBuilder out, int[] line) {
+        float end = 0;
+        for (int k = 0; k < line.length; k++) {
+            int i = line[k];
+            if (k > 0) {
+                int previous = line[k - 1];
+                float tolerance = Math.min(SPACING_TOLERANCE * Math.max(spaceWidths[previous], spaceWidths[i]),
+                        AVERAGE_CHAR_TOLERANCE * (widths[previous] + widths[i]) / 2);
+                if (xs[i] - end > tolerance && !endsWithSpace(out) && !startsWithSpace(i)) {
+                    out.append(' ');
+                }
+            }
+            out.append(text, starts[i], starts[i + 1]);
+            end = xs[i] + widths[i];
+        }
+    }
+
+    private static boolean endsWithSpace(StringBuilder out) {
+        return out.length() > 0 && Character.isWhitespace(out.charAt(out.length() - 1));
+    }
+
+    private boolean startsWithSpace(int i) {
+        return starts[i] < starts[i + 1] && Character.isWhitespace(text.charAt(starts[i]));
+    }
+
+    // glyph indices in content stream order
+    protected int[] glyphsIn(Rectangle2D region) {
+        if (rows.length == 0) {
+            return new int[0];
+        }
+        int from = Math.max(0, row((float) region.getMinY()) - firstRow);
+        int to = Math.min(rows.length - 1, row((float) region.getMaxY()) - firstRow);
+        int count = 0;
+        for (int r = from; r <= to; r++) {
+            count += rows[r].length;
+        }
+        int[] selected = new int[count];
+        int pos = 0;
+        for (int r = from; r <= to; r++) {
+            for (int i : rows[r]) {
+                if (region.contains(xs[i], ys[i])) {
+                    selected[pos++] = i;
+                }
+            }
+        }
+        Arrays.sort(selected, 0, pos);
+        return pos == count ? selected : Arrays.copyOf(selected, pos);
+    }
+
+    // stable order by one coordinate, the glyph index is the tie breaker
+    private static int[] sortedBy(float[] coordinate, int[] glyphs) {
+        long[] keys = new long[glyphs.length];
+        for (int k = 0; k < glyphs.length; k++) {
+            int bits = Float.floatToIntBits(coordinate[glyphs[k]]);
+            int ordered = bits ^ ((bits >> 31) & 0x7fffffff);
+            keys[k] = ((long) ordered << 32) | (glyphs[k] & 0xffffffffL);
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[glyphs.length];
+        for (int k = 0; k < keys.length; k++) {
+            sorted[k] = (int) keys[k];
+        }
+        return sorted;
+    }
+
+    // fake bold draws the same glyph twice at almost the same spot, PDFTextStripper keeps one
+    private boolean overlapsEarlier(int[] row, int filled, int i) {
+        float tolerance = widths[i] / 3;
+        for (int k = filled - 1; k >= 0; k--) {
+            int j = row[k];
+            int length = starts[i + 1] - starts[i];
+            if (Math.abs(xs[i] - xs[j]) <= tolerance && Math.abs(ys[i] - ys[j]) <= tolerance
+                    && length == starts[j + 1] - starts[j]
+                    && text.regionMatches(starts[i], text, starts[j], length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int row(float y) {
+        return (int) Math.floor(y / ROW_HEIGHT);
+    }
+
+    @Value
+    public static class TextLine {
+        String text;
+        float top;
+        float bottom;
+    }
+
+    private record Lines(Rectangle2D band, List<TextLine> lines) {
+    }
+
+    // text operators only, every shown glyph is appended to growing arrays in
+    // the top-left, rotated page coordinates TextPosition reports.
+    // Images are never resolved, shadings and inline images have no operator here.
+    private static class GlyphCollector extends PDFStreamEngine {
+        private final float cropX;
+        private final float cropY;
+        private final float cropWidth;
+        private final float cropHeight;
+        private final int rotation;
+        private int size;
+        private float[] xs = new float[256];
+        private float[] ys = new float[256];
+        private float[] widths = new float[256];
+        private float[] spaceWidths = new float[256];
+        private int[] starts = new int[257];
+        private final StringBuilder text = new StringBuilder(256);
+
+        GlyphCollector(PDPage page) {
+            PDRectangle cropBox = page.getCropBox();
+            this.cropX = cropBox.getLowerLeftX();
+            this.cropY = cropBox.getLowerLeftY();
+            this.cropWidth = cropBox.getWidth();
+            this.cropHeight = cropBox.getHeight();
+            this.rotation = Math.floorMod(page.getRotation(), 360);
+            addOperator(new BeginText());
+            addOperator(new EndText());
+            addOperator(new SetFontAndSize());
+            addOperator(new ShowText());
+            addOperator(new ShowTextAdjusted());
+            addOperator(new ShowTextLine());
+            addOperator(new ShowTextLineAndSpace());
+            addOperator(new MoveText());
+            addOperator(new MoveTextSetLeading());
+            addOperator(new NextLine());
+            addOperator(new SetCharSpacing());
+            addOperator(new SetWordSpacing());
+            addOperator(new SetTextHorizontalScaling());
+            addOperator(new SetTextLeading());
+            addOperator(new SetTextRenderingMode());
+            addOperator(new SetTextRise());
+            addOperator(new SetMatrix());
+            addOperator(new Concatenate());
+            addOperator(new Save());
+            addOperator(new Restore());
+            addOperator(new SetGraphicsStateParameters());
+            addOperator(new DrawObject());
+        }
+
+        // forms are walked for their text, an image XObject is skipped by name
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName name
+                    && getResources() != null && getResources().isImageXObject(name)) {
+                return;
+            }
+            super.processOperator(operator, operands);
+        }
+
+        @Override
+        protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, String unicode,
+                                 Vector displacement) throws IOException {
+            if (unicode == null) {
+                if (!(font instanceof PDSimpleFont)) {
+                    return;
+                }
+                unicode = String.valueOf((char) code);
+            }
+            float scale = textRenderingMatrix.getScalingFactorX();
+            float unit = font instanceof PDType3Font ? font.getFontMatrix().getScaleX() : 0.001f;
+            float spaceWidth = font.getSpaceWidth() * unit;
+            if (spaceWidth <= 0) {
+                spaceWidth = font.getAverageFontWidth() * unit;
+            }
+            float x = textRenderingMatrix.getTranslateX() - cropX;
+            float y = textRenderingMatrix.getTranslateY() - cropY;
+            ensureCapacity();
+            switch (rotation) {
+                case 90 -> {
+                    xs[size] = y;
+                    ys[size] = x;
+                }
+                case 180 -> {
+                    xs[size] = cropWidth - x;
+                    ys[size] = y;
+                }
+                case 270 -> {
+                    xs[size] = cropHeight - y;
+                    ys[size] = cropWidth - x;
+                }
+                default -> {
+                    xs[size] = x;
+                    ys[size] = cropHeight - y;
+                }
+            }
+            widths[size] = displacement.getX() * scale;
+            spaceWidths[size] = spaceWidth * scale;
+            starts[size] = text.length();
+            text.append(unicode);
+            size++;
+            starts[size] = text.length();
+        }
+
+        private void ensureCapacity() {
+            if (size < xs.length) {
+                return;
+            }
+            int capacity = xs.length * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            spaceWidths = Arrays.copyOf(spaceWidths, capacity);
+            starts = Arrays.copyOf(starts, capacity + 1);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package binus.thesis.docverifier.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Region text shared across requests. Submissions of one template repeat the
+// same cover and approval boilerplate, so a page is identified by a hash of what
+// draws it and a repeated region costs that hash instead of a page parse.
+@Slf4j
+@Component
+public class RegionTextCache {
+    private static final int MAX_FORM_DEPTH = 3;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, String> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RegionTextCache(@Value("${docverifier.region-cache.max-entries:10000}") int maxEntries,
+                           MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > RegionTextCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("docverifier.region.cache.size", this, RegionTextCache::size)
+                .description("Cached region texts").register(registry);
+        Gauge.builder("docverifier.region.cache.hit.ratio", this, RegionTextCache::hitRatio)
+                .description("Share of region reads answered from the cache").register(registry);
+        FunctionCounter.builder("docverifier.region.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.region.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.region.cache.evictions", evictions, AtomicLong::get).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    // sha-256 of the page box, decoded content stream, raw XObject streams and font identities.
+    // fontKeys keeps the identity of each font object, pages of one document share most fonts
+    public String pageKey(PDPage page, Map<COSDictionary, String> fontKeys) throws IOException {
+        MessageDigest digest = sha256();
+        PDRectangle box = page.getCropBox();
+        update(digest, box.getLowerLeftX() + "," + box.getLowerLeftY() + ","
+                + box.getWidth() + "," + box.getHeight() + "," + page.getRotation());
+        if (page.hasContents()) {
+            try (InputStream in = page.getContents()) {
+                update(digest, in);
+            }
+        }
+        updateResources(digest, page.getResources(), fontKeys, 0);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public String keyOf(String pageKey, Rectangle2D region) {
+        return pageKey + ":" + region.getX() + ":" + region.getY() + ":"
+                + region.getWidth() + ":" + region.getHeight();
+    }
+
+    public synchronized String get(String key) {
+        String text = entries.get(key);
+        if (text == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return text;
+    }
+
+    public synchronized void put(String key, String text) {
+        if (isEnabled()) {
+            entries.put(key, text);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private void updateResources(MessageDigest digest, PDResources resources, Map<COSDictionary, String> fontKeys,
+                                 int depth) throws IOException {
+        if (resources == null) {
+            return;
+        }
+        // how codes of an identical content stream map to text depends on the whole font:
+        // encoding, widths, ToUnicode and the embedded program, hashed as the font cache does
+        COSDictionary fonts = resources.getCOSObject().getCOSDictionary(COSName.FONT);
+        if (fonts != null) {
+            for (COSName name : fonts.keySet()) {
+                COSBase object = fonts.getDictionaryObject(name);
+                if (object instanceof COSDictionary font) {
+                    String identity = fontKeys.get(font);
+                    if (identity == null) {
+                        identity = FontProgramCache.identity(font);
+                        fontKeys.put(font, identity);
+                    }
+                    update(digest, name.getName() + "=" + identity);
+                }
+            }
+        }
+        COSDictionary xObjects = resources.getCOSObject().getCOSDictionary(COSName.XOBJECT);
+        if (xObjects == null) {
+            return;
+        }
+        for (COSName name : xObjects.keySet()) {
+            if (!(xObjects.getDictionaryObject(name) instanceof COSStream stream)) {
+                continue;
+            }
+            update(digest, name.getName());
+            // encoded bytes, images are hashed without decoding them
+            try (InputStream in = stream.createRawInputStream()) {
+                update(digest, in);
+            }
+            if (depth < MAX_FORM_DEPTH && COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                updateResources(digest, new PDFormXObject(stream).getResources(), fontKeys, depth + 1);
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
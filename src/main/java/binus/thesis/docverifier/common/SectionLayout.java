@@ -0,0 +1,83 @@
+package binus.thesis.docverifier.common;
+
+import lombok.Getter;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Heading positions and section areas of one page. Every TOC heading on the page
+// is located in the same pass, so section checks sharing a page reuse one scan.
+public class SectionLayout {
+    @Getter
+    private final int page;
+    private final float pageWidth;
+    @Getter
+    private final Map<String, Double> headings;
+    private final Map<String, Rectangle2D.Double> areas = new HashMap<>();
+
+    private SectionLayout(int page, float pageWidth, Map<String, Double> headings) {
+        this.page = page;
+        this.pageWidth = pageWidth;
+        this.headings = headings;
+    }
+
+    public static SectionLayout build(PageGlyphIndex index, int page, float pageWidth,
+                                      TableOfContent tableOfContent) throws IOException {
+        List<TableOfContent.Entry> onPage = new ArrayList<>();
+        for (TableOfContent.Entry entry : tableOfContent.getEntries()) {
+            if (entry.getPage() == page) {
+                onPage.add(entry);
+            }
+        }
+        List<String> keys = new ArrayList<>(onPage.size());
+        for (TableOfContent.Entry entry : onPage) {
+            keys.add(entry.getTitle());
+        }
+        SectionLayout layout = new SectionLayout(page, pageWidth,
+                Collections.unmodifiableMap(HeadingLocator.locate(index, pageWidth, keys)));
+        // areas of consecutive headings and of the last heading of a span
+        int size = onPage.size();
+        for (int i = 0; i < size; i++) {
+            String title = onPage.get(i).getTitle();
+            layout.precompute(title, null);
+            layout.precompute(title, title);
+            if (i + 1 < size) {
+                layout.precompute(title, onPage.get(i + 1).getTitle());
+            }
+        }
+        return layout;
+    }
+
+    // same area getRectangledArea returns, null when a heading is not on the page
+    public Rectangle2D.Double area(String startKey, String endKey, boolean isAtSamePage) {
+        String nextKey = isAtSamePage ? endKey : null;
+        Rectangle2D.Double area = areas.get(areaKey(startKey, nextKey));
+        return area != null ? area : compute(startKey, nextKey);
+    }
+
+    private void precompute(String startKey, String endKey) {
+        Rectangle2D.Double area = compute(startKey, endKey);
+        if (area != null) {
+            areas.put(areaKey(startKey, endKey), area);
+        }
+    }
+
+    // endKey null means the next heading is on another page
+    private Rectangle2D.Double compute(String startKey, String endKey) {
+        Double startY = headings.get(startKey);
+        Double endY = endKey == null ? null : headings.get(endKey);
+        if (startY == null || (endKey != null && endY == null)) {
+            return null;
+        }
+        return HeadingLocator.sectionArea(startY, endY, pageWidth);
+    }
+
+    private static String areaKey(String startKey, String endKey) {
+        return endKey == null ? startKey : startKey + "\u0000" + endKey;
+    }
+}
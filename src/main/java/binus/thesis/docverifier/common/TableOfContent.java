@@ -0,0 +1,73 @@
+package binus.thesis.docverifier.common;
+
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Table of content of one document, read once and shared by every section check.
+@Getter
+public class TableOfContent {
+    private static final Pattern NUMBER = Pattern.compile("^(\\d+(\\.\\d+)*)\\.?\\s");
+
+    private final Integer tocPage;
+    private final boolean valid;
+    private final List<Entry> entries;
+    @Getter(lombok.AccessLevel.NONE)
+    private final ConcurrentHashMap<String, List<Entry>> spans = new ConcurrentHashMap<>();
+
+    public TableOfContent(Integer tocPage, boolean valid, List<Entry> entries) {
+        this.tocPage = tocPage;
+        this.valid = valid;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public static TableOfContent invalid(Integer tocPage) {
+        return new TableOfContent(tocPage, false, Collections.emptyList());
+    }
+
+    public static Entry entry(String title, int page) {
+        Matcher matcher = NUMBER.matcher(title);
+        String number = matcher.find() ? matcher.group(1) : null;
+        return new Entry(number, title, page);
+    }
+
+    // entries from the one containing startKey up to (not including) the one containing endKey,
+    // a blank endKey runs to the end of the table
+    public List<Entry> span(String startKey, String endKey) {
+        String end = (endKey == null || endKey.isBlank()) ? "" : endKey;
+        return spans.computeIfAbsent(startKey + "\u0000" + end, k -> collectSpan(startKey, end));
+    }
+
+    private List<Entry> collectSpan(String startKey, String endKey) {
+        List<Entry> listOfContent = new ArrayList<>();
+        KeywordMatcher start = KeywordMatcher.of(startKey);
+        KeywordMatcher end = endKey.isEmpty() ? null : KeywordMatcher.of(endKey);
+        boolean isCollecting = false;
+        for (Entry entry : entries) {
+            String title = entry.getTitle();
+            if (!isCollecting && start.containsAny(title)) {
+                isCollecting = true;
+            }
+            if (isCollecting) {
+                if (end != null && end.containsAny(title)) {
+                    break;
+                }
+                listOfContent.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(listOfContent);
+    }
+
+    @Value
+    public static class Entry {
+        String number;
+        String title;
+        int page;
+    }
+}
@@ -0,0 +1,222 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.template.CheckPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Runs the checks of one compiled template against one document.
+// Page searches and region reads shared by several checks happen once.
+@Slf4j
+public class TemplateChecker extends Helper {
+    private final CheckPlan plan;
+    private final LogoDetector logoDetector;
+    private final boolean failFast;
+    // set by the first failed check in fail-fast mode, later page work is refused
+    private volatile boolean cancelled;
+    private final Set<String> errors = ConcurrentHashMap.newKeySet();
+
+    public TemplateChecker(CheckPlan plan, Executor executor) {
+        this(plan, executor, null, null, null, false);
+    }
+
+    public TemplateChecker(CheckPlan plan, Executor executor, OcrEngine ocrEngine,
+                           RegionTextCache regionCache, LogoDetector logoDetector, boolean failFast) {
+        super(executor, ocrEngine, regionCache);
+        this.plan = plan;
+        // without a detector the logo check asks for an image in the logo area
+        this.logoDetector = logoDetector != null ? logoDetector : LogoDetector.presenceOnly();
+        this.failFast = failFast;
+    }
+
+    public Map<String, Boolean> process(PDDocument document) {
+        return process(new VerificationContext(document));
+    }
+
+    public Map<String, Boolean> process(VerificationContext context) {
+        log.info(">>>>>>>>> [{} DOCUMENT ON CHECK] <<<<<<<<<<", plan.getDocType());
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> searches = new ArrayList<>();
+        for (int i = 0; i < plan.getSearches().size(); i++) {
+            CheckPlan.PageSearch search = plan.getSearches().get(i);
+            // a shared search is charged to the approval check
+            String checkId = i == plan.getApprovalSearch() ? CheckPlan.APPROVAL : CheckPlan.TABLE_OF_CONTENT;
+            searches.add(async(checkId, () -> searchPage(search.getStartPage(), search.getMatcher(),
+                    "HEADER_" + search.getKeyword(), context, search.getRegion())));
+        }
+
+        Map<String, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        CompletableFuture<Boolean> coverText = async(CheckPlan.COVER, () ->
+                validateRules(context, PAGE_COVER, plan.getCoverRules(), 0));
+        if (plan.getLogoRule() != null) {
+            CompletableFuture<Boolean> logo = async(CheckPlan.LOGO, () ->
+                    validateLogo(context, PAGE_COVER, plan.getLogoRule()));
+            checks.put(CheckPlan.COVER, coverText.thenCombine(logo, (text, image) -> text && image));
+            checks.put(CheckPlan.LOGO, logo);
+        } else {
+            checks.put(CheckPlan.COVER, coverText);
+        }
+        checks.put(CheckPlan.APPROVAL, after(searches.get(plan.getApprovalSearch()), CheckPlan.APPROVAL, page ->
+                page == null ? CompletableFuture.completedFuture(false)
+                        : validateRules(context, page, plan.getApprovalRules(), 0)));
+        CompletableFuture<TableOfContent> tableOfContent = after(searches.get(plan.getTocSearch()),
+                CheckPlan.TABLE_OF_CONTENT, page -> collectContent(context, page));
+        checks.put(CheckPlan.TABLE_OF_CONTENT, tableOfContent.thenApply(TableOfContent::isValid));
+        for (CheckPlan.SectionRule rule : plan.getSectionRules()) {
+            checks.put(rule.getId(), after(tableOfContent, rule.getId(), toc -> {
+                if (rule.isRequireValidToc() && !toc.isValid()) return CompletableFuture.completedFuture(false);
+                return validateEachContent(context, toc, rule.getStartKey(), rule.getEndKey());
+            }));
+        }
+
+        // Collect all results, in fail-fast mode only the ones settled before the first failure.
+        // The recording stages are awaited, not the checks, so no result lands after the join
+        Map<String, Boolean> validationResults = new HashMap<>();
+        errors.clear();
+        List<CompletableFuture<?>> pending = new ArrayList<>(searches);
+        pending.add(coverText);
+        pending.add(tableOfContent);
+        pending.addAll(checks.values());
+        List<CompletableFuture<?>> recorded = new ArrayList<>(checks.size());
+        checks.forEach((id, check) -> recorded.add(check.whenComplete((valid, e) -> {
+            if (isCancellation(e)) {
+                return;
+            }
+            observer.checkCompleted(id, Boolean.TRUE.equals(valid), System.nanoTime() - start);
+            if (e != null) {
+                // no verdict, the check is reported as an error and nothing is cached
+                log.info("[{}] check {} failed internally: {}", plan.getDocType(), id, e.getMessage());
+                errors.add(id);
+            } else if (record(validationResults, id, valid)) {
+                // stages not started yet never run, running ones stop at their next page
+                pending.forEach(future -> future.cancel(false));
+            }
+        })));
+        CompletableFuture.allOf(recorded.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
+        // cancelled checks complete at once, wait for stages still running so none touches the document after it is closed
+        awaitStages();
+        synchronized (validationResults) {
+            if (cancelled) {
+                log.info("[{}] fail-fast stop, {} of {} checks completed", plan.getDocType(),
+                        validationResults.size(), checks.size());
+            }
+            return new HashMap<>(validationResults);
+        }
+    }
+
+    // checks that ended in an internal error instead of a verdict, settled once process returns
+    public Set<String> errors() {
+        return Set.copyOf(errors);
+    }
+
+    // no stage starts once a fail-fast stop is decided
+    @Override
+    protected void beforeStage() {
+        if (cancelled) {
+            throw new CancellationException("Verification stopped after a failed check");
+        }
+    }
+
+    private static boolean isCancellation(Throwable e) {
+        return e instanceof CancellationException || (e != null && e.getCause() instanceof CancellationException);
+    }
+
+    // true when this result stops the remaining checks
+    private boolean record(Map<String, Boolean> validationResults, String id, Boolean valid) {
+        synchronized (validationResults) {
+            if (cancelled) {
+                return false;
+            }
+            validationResults.put(id, valid != null && valid);
+            if (failFast && !Boolean.TRUE.equals(valid)) {
+                stageLock.lock();
+                try {
+                    cancelled = true;
+                } finally {
+                    stageLock.unlock();
+                }
+                // siblings running in the document's scope are interrupted, not only refused their next page
+                if (executor instanceof DocumentExecutors.DocumentScope scope) {
+                    scope.cancel();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    protected PageGlyphIndex pageIndex(VerificationContext context, int page) throws IOException {
+        if (cancelled) {
+            throw new CancellationException("Verification stopped after a failed check");
+        }
+        return super.pageIndex(context, page);
+    }
+
+    // the same region of the same page is extracted once per document, checks asking
+    // while an OCR read is running wait for that read
+    @Override
+    protected CompletableFuture<String> regionText(VerificationContext context, int page,
+                                                   String regionName, Rectangle2D region) {
+        String key = page + ":" + region.getX() + ":" + region.getY() + ":"
+                + region.getWidth() + ":" + region.getHeight();
+        CompletableFuture<String> text = context.regionTexts.get(key);
+        if (text == null) {
+            text = super.regionText(context, page, regionName, region);
+            CompletableFuture<String> first = context.regionTexts.putIfAbsent(key, text);
+            if (first != null) {
+                return first;
+            }
+        }
+        return text;
+    }
+
+    private CompletableFuture<Boolean> validateLogo(VerificationContext context, int page, CheckPlan.LogoRule rule)
+            throws IOException {
+        return CompletableFuture.completedFuture(context.readPage(page, (document, pdPage) -> !cancelled
+                && logoDetector.matches(pdPage, rule.getArea().area(context.pageHeight(page)), rule.getMaxDistance())));
+    }
+
+    // rules one after another, the first rejected region decides
+    private CompletableFuture<Boolean> validateRules(VerificationContext context, int page,
+                                                     List<CheckPlan.RegionRule> rules, int from) {
+        if (from == rules.size()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        CheckPlan.RegionRule rule = rules.get(from);
+        return then(regionText(context, page, rule.getName(), rule.area(context.pageHeight(page))), text ->
+                rule.accepts(text) ? validateRules(context, page, rules, from + 1)
+                        : CompletableFuture.completedFuture(false));
+    }
+
+    // TOC page, validity and entries are read once per document, no TOC page found is an invalid table
+    protected CompletableFuture<TableOfContent> collectContent(VerificationContext context, Integer tocPage) {
+        if (tocPage == null) {
+            return CompletableFuture.completedFuture(TableOfContent.invalid(null));
+        }
+        CheckPlan.RegionRule tocRule = plan.getTocRule();
+        return regionText(context, tocPage, tocRule.getName(), tocRule.area(context.pageHeight(tocPage)))
+                .thenApply(tocContent -> {
+                    boolean valid = tocRule.accepts(tocContent)
+                            && plan.getSectionMatcher().containsAll(tocContent)
+                            && checkAllContent(tocContent, plan.getRequiredSections());
+                    List<TableOfContent.Entry> entries = valid
+                            ? plan.getTocFormat().parse(tocContent) : new ArrayList<>();
+                    return new TableOfContent(tocPage, valid, entries);
+                });
+    }
+}
@@ -0,0 +1,169 @@
+package binus.thesis.docverifier.common;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resource cache of a document under verification. Only fonts are kept, the
+// most recently used maxFonts of them, since every text pass needs them again.
+// Images, forms, shadings, patterns and color spaces are never held: a page is
+// walked for text once, and the default cache would keep them until the document closes.
+// A font missing here is borrowed from the cross-document cache before PDFBox parses it;
+// borrowed and parsed fonts go back to that cache on release, once the document is closed.
+public class TextResourceCache implements ResourceCache {
+    private final int maxFonts;
+    private final LinkedHashMap<COSObject, PDFont> fonts;
+    private final FontProgramCache shared;
+    // shared cache key per font object, hashed once per document
+    private final HashMap<COSObject, String> sharedKeys = new HashMap<>();
+    // fonts of this document to give back, by shared key
+    private final List<Map.Entry<String, PDFont>> lent = new ArrayList<>();
+
+    public TextResourceCache(int maxFonts) {
+        this(maxFonts, null);
+    }
+
+    public TextResourceCache(int maxFonts, FontProgramCache shared) {
+        this.maxFonts = maxFonts;
+        this.shared = shared;
+        this.fonts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<COSObject, PDFont> eldest) {
+                return size() > TextResourceCache.this.maxFonts;
+            }
+        };
+    }
+
+    @Override
+    public PDFont getFont(COSObject indirect) throws IOException {
+        synchronized (this) {
+            PDFont font = fonts.get(indirect);
+            if (font != null) {
+                return font;
+            }
+        }
+        String key = sharedKey(indirect);
+        PDFont font = key == null ? null : shared.borrow(key);
+        if (font != null) {
+            keep(indirect, font);
+            lend(key, font);
+        }
+        return font;
+    }
+
+    // called by PDFBox after parsing a font getFont did not have
+    @Override
+    public void put(COSObject indirect, PDFont font) throws IOException {
+        keep(indirect, font);
+        String key = sharedKey(indirect);
+        if (key != null && font != null) {
+            lend(key, font);
+        }
+    }
+
+    // gives every font of the document to the next one, nothing here may use them afterwards
+    public void release() {
+        List<Map.Entry<String, PDFont>> fonts;
+        synchronized (this) {
+            fonts = new ArrayList<>(lent);
+            lent.clear();
+            this.fonts.clear();
+        }
+        fonts.forEach(entry -> shared.giveBack(entry.getKey(), entry.getValue()));
+    }
+
+    // fonts this document holds, for tests
+    synchronized List<PDFont> lentFonts() {
+        return lent.stream().map(Map.Entry::getValue).toList();
+    }
+
+    private synchronized void lend(String key, PDFont font) {
+        lent.add(Map.entry(key, font));
+    }
+
+    private synchronized void keep(COSObject indirect, PDFont font) {
+        if (maxFonts > 0) {
+            fonts.put(indirect, font);
+        }
+    }
+
+    private String sharedKey(COSObject indirect) throws IOException {
+        if (shared == null || !shared.isEnabled() || !(indirect.getObject() instanceof COSDictionary font)) {
+            return null;
+        }
+        synchronized (sharedKeys) {
+            if (!sharedKeys.containsKey(indirect)) {
+                sharedKeys.put(indirect, shared.keyOf(font));
+            }
+            return sharedKeys.get(indirect);
+        }
+    }
+
+    @Override
+    public PDColorSpace getColorSpace(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public PDExtendedGraphicsState getExtGState(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public PDShading getShading(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public PDAbstractPattern getPattern(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public PDPropertyList getProperties(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public PDXObject getXObject(COSObject indirect) {
+        return null;
+    }
+
+    @Override
+    public void put(COSObject indirect, PDColorSpace colorSpace) {
+    }
+
+    @Override
+    public void put(COSObject indirect, PDExtendedGraphicsState extGState) {
+    }
+
+    @Override
+    public void put(COSObject indirect, PDShading shading) {
+    }
+
+    @Override
+    public void put(COSObject indirect, PDAbstractPattern pattern) {
+    }
+
+    @Override
+    public void put(COSObject indirect, PDPropertyList propertyList) {
+    }
+
+    @Override
+    public void put(COSObject indirect, PDXObject xobject) {
+    }
+}
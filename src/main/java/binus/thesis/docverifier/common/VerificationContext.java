@@ -0,0 +1,124 @@
+package binus.thesis.docverifier.common;
+
+import lombok.Getter;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Everything one document's checks share: the document, the size of each page
+// as displayed (crop box, rotation applied, like the text positions) and the per-page caches. Created per verification, nothing in it outlives the document.
+// With document views, page content is read from a private copy instead of the shared document.
+public class VerificationContext {
+    @Getter
+    private final PDDocument document;
+    private final List<PDPage> pages;
+    private final float[] widths;
+    private final float[] heights;
+    private final DocumentViews views;
+    private final ConcurrentHashMap<Integer, ReentrantLock> pageLocks = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, String> pageKeys = new ConcurrentHashMap<>();
+    // font identity per font object (COS objects compare by identity), shared by the page keys
+    final ConcurrentHashMap<COSDictionary, String> fontKeys = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, PageGlyphIndex> pageIndexes = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, SectionLayout> sectionLayouts = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, CompletableFuture<String>> regionTexts = new ConcurrentHashMap<>();
+
+    // walks the page tree once, checks look pages up by number afterwards
+    public VerificationContext(PDDocument document) {
+        this(document, null);
+    }
+
+    public VerificationContext(PDDocument document, DocumentViews views) {
+        this.document = document;
+        this.views = views;
+        int count = document.getNumberOfPages();
+        this.pages = new ArrayList<>(count);
+        this.widths = new float[count];
+        this.heights = new float[count];
+        int i = 0;
+        for (PDPage page : document.getPages()) {
+            PDRectangle box = displaySize(page);
+            pages.add(page);
+            widths[i] = box.getWidth();
+            heights[i] = box.getHeight();
+            i++;
+        }
+    }
+
+    // the frame region rules are measured in: the visible crop box, turned with the page,
+    // origin at its top left corner
+    public static PDRectangle displaySize(PDPage page) {
+        PDRectangle box = page.getCropBox();
+        boolean turned = Math.floorMod(page.getRotation(), 180) == 90;
+        return turned ? new PDRectangle(box.getHeight(), box.getWidth())
+                : new PDRectangle(box.getWidth(), box.getHeight());
+    }
+
+    // page space (PDF units, y up) to that frame, the transform the renderer applies to a page
+    public static AffineTransform displayTransform(PDPage page) {
+        PDRectangle box = page.getCropBox();
+        int rotation = Math.floorMod(page.getRotation(), 360);
+        AffineTransform transform = new AffineTransform();
+        switch (rotation) {
+            case 90 -> transform.translate(box.getHeight(), 0);
+            case 180 -> transform.translate(box.getWidth(), box.getHeight());
+            case 270 -> transform.translate(0, box.getWidth());
+            default -> {
+            }
+        }
+        transform.rotate(Math.toRadians(rotation));
+        transform.translate(0, box.getHeight());
+        transform.scale(1, -1);
+        transform.translate(-box.getLowerLeftX(), -box.getLowerLeftY());
+        return transform;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    // pages are numbered from 1
+    public PDPage page(int page) {
+        return pages.get(page - 1);
+    }
+
+    public float pageWidth(int page) {
+        return widths[page - 1];
+    }
+
+    public float pageHeight(int page) {
+        return heights[page - 1];
+    }
+
+    public interface PageReader<T> {
+        T read(PDDocument document, PDPage page) throws IOException;
+    }
+
+    // content of one page, under the page lock on the shared document or on a borrowed view
+    public <T> T readPage(int page, PageReader<T> reader) throws IOException {
+        if (views != null) {
+            return views.read(view -> reader.read(view, view.getPage(page - 1)));
+        }
+        ReentrantLock lock = pageLock(page);
+        lock.lock();
+        try {
+            return reader.read(document, page(page));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // held while a page value is computed, so it is computed once
+    public ReentrantLock pageLock(int page) {
+        return pageLocks.computeIfAbsent(page, k -> new ReentrantLock());
+    }
+}
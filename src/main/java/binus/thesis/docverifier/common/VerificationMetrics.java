@@ -0,0 +1,125 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.template.CheckPlan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Micrometer timers for every verification stage, tagged by document type:
+// document load, whole verification, each check, region reads and heading lookups.
+// Only template document types become tags, anything else is "unknown", and the
+// timers of a type are built once per template version instead of looked up per call.
+@Component
+public class VerificationMetrics {
+    private static final String UNKNOWN = "unknown";
+    private static final List<String> OUTCOMES = List.of("verified", "cached", "rejected", "failed");
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, PlanMeters> plans = new ConcurrentHashMap<>();
+    private final Map<String, Timer> unknownVerifications;
+
+    public VerificationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.unknownVerifications = verificationTimers(UNKNOWN);
+        monitor(Helper.ocrExecutor, "checker");
+    }
+
+    // queue depth, active threads and task times of an executor
+    public void monitor(ExecutorService executor, String name) {
+        new ExecutorServiceMetrics(executor, "docverifier." + name, Tags.empty()).bindTo(registry);
+    }
+
+    public void documentLoaded(CheckPlan plan, long nanos) {
+        meters(plan).documentLoad.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // plan null when the document type has no template, outcome: verified, cached, rejected or failed
+    public void verificationCompleted(CheckPlan plan, String outcome, long nanos) {
+        Map<String, Timer> timers = plan == null ? unknownVerifications : meters(plan).verifications;
+        Timer timer = timers.get(outcome);
+        if (timer == null) {
+            throw new IllegalArgumentException("Unknown verification outcome: " + outcome);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public CheckObserver observer(CheckPlan plan) {
+        PlanMeters meters = meters(plan);
+        return new CheckObserver() {
+            @Override
+            public void regionRead(int page, RegionSource source, long nanos) {
+                meters.regionReads.get(source).record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void headingLookup(int page, long nanos) {
+                meters.headingLookup.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void checkCompleted(String checkId, boolean passed, long nanos) {
+                Timer[] timers = meters.checks.get(checkId);
+                if (timers != null) {
+                    timers[passed ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+    }
+
+    // a reloaded template may bring other check ids, its meters are rebuilt
+    private PlanMeters meters(CheckPlan plan) {
+        PlanMeters meters = plans.get(plan.getDocType());
+        if (meters != null && meters.ruleVersion.equals(plan.getRuleVersion())) {
+            return meters;
+        }
+        return plans.compute(plan.getDocType(), (docType, current) ->
+                current != null && current.ruleVersion.equals(plan.getRuleVersion()) ? current : new PlanMeters(plan));
+    }
+
+    private Map<String, Timer> verificationTimers(String type) {
+        Map<String, Timer> timers = new HashMap<>();
+        for (String outcome : OUTCOMES) {
+            timers.put(outcome, registry.timer("docverifier.verification", "docType", type, "outcome", outcome));
+        }
+        return Map.copyOf(timers);
+    }
+
+    private final class PlanMeters {
+        private final String ruleVersion;
+        private final Timer documentLoad;
+        private final Map<String, Timer> verifications;
+        private final Timer headingLookup;
+        private final EnumMap<CheckObserver.RegionSource, Timer> regionReads =
+                new EnumMap<>(CheckObserver.RegionSource.class);
+        // pass and fail timer per check id
+        private final Map<String, Timer[]> checks = new HashMap<>();
+
+        PlanMeters(CheckPlan plan) {
+            String type = plan.getDocType();
+            this.ruleVersion = plan.getRuleVersion();
+            this.documentLoad = registry.timer("docverifier.document.load", "docType", type);
+            this.verifications = verificationTimers(type);
+            this.headingLookup = registry.timer("docverifier.heading.lookup", "docType", type);
+            for (CheckObserver.RegionSource source : CheckObserver.RegionSource.values()) {
+                regionReads.put(source, registry.timer("docverifier.region.read", "docType", type,
+                        "source", source.name().toLowerCase(Locale.ROOT)));
+            }
+            for (String checkId : plan.getCheckIds()) {
+                checks.put(checkId, new Timer[]{
+                        registry.timer("docverifier.check", "docType", type, "check", checkId, "result", "pass"),
+                        registry.timer("docverifier.check", "docType", type, "check", checkId, "result", "fail")});
+            }
+        }
+    }
+}
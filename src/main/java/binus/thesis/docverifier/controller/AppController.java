@@ -9,6 +9,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.List;
 
 @RestController
 @Slf4j
@@ -20,7 +23,17 @@ public class AppController {
     @PostMapping(value = "/doc-verification", consumes = "multipart/form-data", produces = "application/json")
     public ResponseEntity<ResponseModel> getTransactions(@RequestParam("docFile") MultipartFile docFile,
                                                          @RequestParam("requestId") String requestId,
-                                                         @RequestParam("docType") String docType) {
-        return appService.doVerification(docFile, requestId, docType);
+                                                         @RequestParam("docType") String docType,
+                                                         @RequestParam(value = "mode", required = false) String mode,
+                                                         @RequestParam(value = "trace", defaultValue = "false") boolean trace) {
+        return appService.doVerification(docFile, requestId, docType, mode, trace);
+    }
+
+    // one JSON line per document, in completion order
+    @PostMapping(value = "/doc-verification/batch", consumes = "multipart/form-data", produces = "application/x-ndjson")
+    public ResponseBodyEmitter batchVerification(@RequestParam("docFile") List<MultipartFile> docFiles,
+                                                 @RequestParam("requestId") List<String> requestIds,
+                                                 @RequestParam("docType") List<String> docTypes) {
+        return appService.doBatchVerification(docFiles, requestIds, docTypes);
     }
 }
\ No newline at end of file
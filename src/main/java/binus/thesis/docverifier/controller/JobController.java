@@ -0,0 +1,39 @@
+package binus.thesis.docverifier.controller;
+
+import binus.thesis.docverifier.model.JobModel;
+import binus.thesis.docverifier.service.JobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/")
+public class JobController {
+    private final JobService jobService;
+
+    @PostMapping(value = "/doc-verification/jobs", consumes = "multipart/form-data", produces = "application/json")
+    public ResponseEntity<JobModel> submitJob(@RequestParam("docFile") MultipartFile docFile,
+                                              @RequestParam("requestId") String requestId,
+                                              @RequestParam("docType") String docType,
+                                              @RequestParam(value = "mode", required = false) String mode,
+                                              @RequestParam(value = "trace", defaultValue = "false") boolean trace) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(jobService.submit(docFile, requestId, docType, mode, trace));
+    }
+
+    @GetMapping(value = "/doc-verification/jobs/{jobId}", produces = "application/json")
+    public ResponseEntity<JobModel> getJob(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(jobService.getJob(jobId));
+    }
+
+    @GetMapping(value = "/doc-verification/jobs/{jobId}/events", produces = "text/event-stream")
+    public SseEmitter subscribeJob(@PathVariable("jobId") String jobId) {
+        return jobService.subscribe(jobId);
+    }
+}
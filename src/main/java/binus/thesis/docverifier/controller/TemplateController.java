@@ -0,0 +1,44 @@
+package binus.thesis.docverifier.controller;
+
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/")
+public class TemplateController {
+    private final TemplateRegistry templateRegistry;
+
+    // document type -> rule version of the active templates
+    @GetMapping(value = "/templates", produces = "application/json")
+    public ResponseEntity<Map<String, String>> getTemplates() {
+        return ResponseEntity.ok(versions(templateRegistry.plans()));
+    }
+
+    @PostMapping(value = "/templates/reload", produces = "application/json")
+    public ResponseEntity<Map<String, String>> reloadTemplates() {
+        try {
+            return ResponseEntity.ok(versions(templateRegistry.reload()));
+        } catch (IOException | RuntimeException e) {
+            log.info("Template reload rejected: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, String> versions(Map<String, CheckPlan> plans) {
+        Map<String, String> versions = new LinkedHashMap<>();
+        plans.forEach((docType, plan) -> versions.put(docType, plan.getRuleVersion()));
+        return versions;
+    }
+}
@@ -0,0 +1,343 @@
+package binus.thesis.docverifier.corpus;
+
+import binus.thesis.docverifier.template.DocumentTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Synthetic BRD/UAT/PVT documents laid out where a template looks for things:
+// cover title and logo, approval cells, a dot-leader table of content on page 5
+// and numbered section headings with content right under them. No customer
+// document is needed for load tests, benchmarks or sizing.
+public final class CorpusGenerator {
+    private static final PDRectangle PAGE = PDRectangle.LETTER;
+    private static final int TOC_PAGE = 5;
+    private static final float MARGIN = 72;
+    // headings sit 5pt off the 10pt grid the heading lookup snaps to, away from rounding edges
+    private static final float TOP = 105;
+    private static final float BOTTOM = 720;
+    private static final float LEADING = 16;
+    // heading baseline to first content line, keeps the content inside the checked area
+    private static final float CONTENT_OFFSET = 18;
+    private static final float BLOCK_GAP = 30;
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final PDFont HEADING_FONT = PDType1Font.HELVETICA_BOLD;
+    private static final String[] SUBSECTION_TITLES = {"OVERVIEW", "DETAIL", "NOTES", "REFERENCE", "EXAMPLE"};
+    private static final String[] WORDS = {"the", "system", "shall", "process", "request", "within", "agreed",
+            "service", "level", "user", "data", "report", "approval", "release", "test", "result", "owner"};
+
+    private CorpusGenerator() {
+    }
+
+    public static DocumentTemplate template(String docType) throws IOException {
+        String resource = "/doc-templates/" + docType.trim().toLowerCase() + ".json";
+        try (InputStream in = CorpusGenerator.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No template for document type " + docType);
+            }
+            return new ObjectMapper().readValue(in, DocumentTemplate.class);
+        }
+    }
+
+    public static byte[] generate(String docType, CorpusSpec spec) throws IOException {
+        return generate(template(docType), spec);
+    }
+
+    public static byte[] generate(DocumentTemplate template, CorpusSpec spec) throws IOException {
+        Random random = new Random(spec.getSeed());
+        Set<Defect> defects = spec.getDefects().isEmpty() ? EnumSet.noneOf(Defect.class) : EnumSet.copyOf(spec.getDefects());
+        List<Heading> headings = layout(template, spec, defects);
+        try (PDDocument document = new PDDocument()) {
+            writeCover(document, template, defects);
+            writeText(document, "REVISION HISTORY");
+            writeApproval(document, template, defects);
+            writeText(document, "DOCUMENT INFORMATION");
+            writeTableOfContent(document, template, headings);
+            writeSections(document, spec, headings, random);
+            // fixed file identifier, otherwise every save differs
+            byte[] id = ByteBuffer.allocate(16).putLong(spec.getSeed()).putLong(headings.size()).array();
+            COSArray ids = new COSArray();
+            ids.add(new COSString(id));
+            ids.add(new COSString(id));
+            document.getDocument().getTrailer().setItem(COSName.ID, ids);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    // <outDir> <count> [BRD,UAT,PVT] [pageCount] [imagesPerSection]: writes count documents
+    // of every type, every fifth one with a rotating defect
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CorpusGenerator <outDir> <count> [types] [pageCount] [imagesPerSection]");
+            System.exit(2);
+        }
+        Path outDir = Files.createDirectories(Path.of(args[0]));
+        int count = Integer.parseInt(args[1]);
+        String[] types = (args.length > 2 ? args[2] : "BRD,UAT,PVT").split(",");
+        CorpusSpec base = CorpusSpec.builder()
+                .pageCount(args.length > 3 ? Integer.parseInt(args[3]) : 0)
+                .imagesPerSection(args.length > 4 ? Integer.parseInt(args[4]) : 0)
+                .build();
+        Defect[] rotation = Defect.values();
+        for (String type : types) {
+            DocumentTemplate template = template(type);
+            for (int i = 0; i < count; i++) {
+                Set<Defect> defects = i % 5 == 4 ? Set.of(rotation[(i / 5) % rotation.length]) : Set.of();
+                CorpusSpec spec = base.toBuilder().seed(i).defects(defects).build();
+                String name = String.format("%s-%05d%s.pdf", type.trim().toLowerCase(), i,
+                        defects.isEmpty() ? "" : "-" + defects.iterator().next().name().toLowerCase());
+                Files.write(outDir.resolve(name), generate(template, spec));
+            }
+        }
+    }
+
+    // headings with their pages, computed first so the table of content knows the page numbers
+    private static List<Heading> layout(DocumentTemplate template, CorpusSpec spec, Set<Defect> defects) {
+        List<DocumentTemplate.Section> sections = new ArrayList<>(template.getSections());
+        int defectSection = Math.min(Math.max(spec.getDefectSection(), 0), sections.size() - 1);
+        String emptySection = defects.contains(Defect.EMPTY_SECTION) ? sections.get(defectSection).getTitle() : null;
+        if (defects.contains(Defect.MISSING_SECTION)) {
+            sections.remove(defectSection);
+        }
+        int lines = Math.max(1, spec.getParagraphLines());
+        List<Heading> headings = new ArrayList<>();
+        int page = TOC_PAGE;
+        float y = BOTTOM;
+        for (int s = 0; s < sections.size(); s++) {
+            // every section starts on a page of its own
+            page++;
+            y = TOP;
+            String title = sections.get(s).getTitle();
+            headings.add(new Heading((s + 1) + " " + title, page, y, title.equals(emptySection) ? 0 : lines, true));
+            y += blockHeight(lines);
+            for (int sub = 0; sub < spec.getSubsections(); sub++) {
+                if (y + blockHeight(lines) > BOTTOM) {
+                    page++;
+                    y = TOP;
+                }
+                String subTitle = SUBSECTION_TITLES[sub % SUBSECTION_TITLES.length]
+                        + (sub >= SUBSECTION_TITLES.length ? " " + (sub / SUBSECTION_TITLES.length + 1) : "");
+                headings.add(new Heading((s + 1) + "." + (sub + 1) + " " + subTitle, page, y, lines, false));
+                y += blockHeight(lines);
+            }
+        }
+        // continuation pages spread between the sections up to the requested page count
+        int extra = spec.getPageCount() - page;
+        if (extra > 0 && !sections.isEmpty()) {
+            List<Heading> padded = new ArrayList<>(headings.size());
+            int shift = 0;
+            int sectionIndex = -1;
+            for (Heading heading : headings) {
+                if (heading.section) {
+                    sectionIndex++;
+                    shift = (int) ((long) extra * sectionIndex / sections.size());
+                }
+                padded.add(new Heading(heading.text, heading.page + shift, heading.y, heading.lines, heading.section));
+            }
+            headings = padded;
+        }
+        return headings;
+    }
+
+    // whole multiples of 10pt keep every heading on the same grid offset as the first
+    private static float blockHeight(int lines) {
+        return (float) Math.ceil((CONTENT_OFFSET + LEADING * lines + BLOCK_GAP) / 10) * 10;
+    }
+
+    private static void writeCover(PDDocument document, DocumentTemplate template, Set<Defect> defects)
+            throws IOException {
+        PDPage cover = page(document);
+        try (PDPageContentStream content = new PDPageContentStream(document, cover)) {
+            if (!defects.contains(Defect.NO_COVER_TITLE)) {
+                for (DocumentTemplate.Cell cell : template.getCover()) {
+                    text(content, cell.getRegion(), HEADING_FONT, 20,
+                            cell.getContains() != null ? cell.getContains() : cell.getName());
+                }
+            }
+            if (template.getLogo() != null && !defects.contains(Defect.NO_LOGO)) {
+                DocumentTemplate.Region area = top(template.getLogo().getRegion());
+                PDImageXObject logo = LosslessFactory.createFromImage(document, logoImage());
+                float size = (float) Math.min(Math.min(area.getHeight(), area.getWidth()) - 16, 100);
+                float x = (float) Math.max(area.getX() + 8, 36);
+                float y = (float) (PAGE.getHeight() - area.getY() - area.getHeight() / 2 - size / 2);
+                content.drawImage(logo, x, y, size, size);
+            }
+        }
+    }
+
+    private static void writeApproval(PDDocument document, DocumentTemplate template, Set<Defect> defects)
+            throws IOException {
+        PDPage approval = page(document);
+        try (PDPageContentStream content = new PDPageContentStream(document, approval)) {
+            DocumentTemplate.PageSearch search = template.getApproval().getSearch();
+            text(content, search.getRegion(), HEADING_FONT, 14, search.getKeyword());
+            if (!defects.contains(Defect.UNSIGNED_APPROVAL)) {
+                for (DocumentTemplate.Cell cell : template.getApproval().getCells()) {
+                    text(content, cell.getRegion(), FONT, 9, cell.getName().contains("DATE") ? "01/01/2024" : "Signed");
+                }
+            }
+        }
+    }
+
+    private static void writeTableOfContent(PDDocument document, DocumentTemplate template,
+                                            List<Heading> headings) throws IOException {
+        PDPage toc = page(document);
+        DocumentTemplate.TableOfContentSpec spec = template.getTableOfContent();
+        try (PDPageContentStream content = new PDPageContentStream(document, toc)) {
+            text(content, spec.getSearch().getRegion(), HEADING_FONT, 14, spec.getSearch().getKeyword());
+            DocumentTemplate.Region region = top(spec.getRegion());
+            // dense tables shrink to stay inside the region read by the check
+            float leading = (float) Math.min(LEADING, (region.getHeight() - 20) / Math.max(1, headings.size()));
+            float size = Math.min(11, leading * 0.7f);
+            float y = (float) region.getY() + 20;
+            for (Heading heading : headings) {
+                line(content, FONT, size,
+                        (float) region.getX() + (heading.section ? 10 : 24), y,
+                        heading.text + " ........ " + heading.page);
+                y += leading;
+            }
+        }
+    }
+
+    private static void writeSections(PDDocument document, CorpusSpec spec, List<Heading> headings,
+                                      Random random) throws IOException {
+        int current = TOC_PAGE;
+        PDPageContentStream content = null;
+        try {
+            for (Heading heading : headings) {
+                while (current < heading.page) {
+                    if (content != null) {
+                        content.close();
+                    }
+                    current++;
+                    content = new PDPageContentStream(document, page(document));
+                    if (current < heading.page) {
+                        // continuation page of the previous section
+                        paragraph(content, TOP, 40, random);
+                    } else if (heading.section) {
+                        images(document, content, spec, random);
+                    }
+                }
+                line(content, HEADING_FONT, 12, MARGIN, heading.y, heading.text);
+                paragraph(content, heading.y + CONTENT_OFFSET, heading.lines, random);
+            }
+        } finally {
+            if (content != null) {
+                content.close();
+            }
+        }
+    }
+
+    private static void paragraph(PDPageContentStream content, float y, int lines, Random random)
+            throws IOException {
+        for (int i = 0; i < lines && y + LEADING * i < BOTTOM; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                text.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            line(content, FONT, 10, MARGIN, y + LEADING * i, text.append('.').toString());
+        }
+    }
+
+    // noise pictures, barely compressible so their pixel size sets the file size
+    private static void images(PDDocument document, PDPageContentStream content, CorpusSpec spec,
+                               Random random) throws IOException {
+        int size = Math.max(8, spec.getImageSize());
+        for (int i = 0; i < spec.getImagesPerSection(); i++) {
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    image.setRGB(x, y, random.nextInt(0x1000000));
+                }
+            }
+            PDImageXObject xObject = JPEGFactory.createFromImage(document, image, 0.9f);
+            float shown = 120;
+            float below = (i * (shown + 10)) % 400;
+            content.drawImage(xObject, PAGE.getWidth() - MARGIN - shown,
+                    PAGE.getHeight() - 300 - below, shown, shown);
+        }
+    }
+
+    // the cover logo of every generated document: the shipped reference logo
+    public static BufferedImage logoImage() {
+        try (InputStream in = CorpusGenerator.class.getResourceAsStream("/logo/reference.png")) {
+            if (in == null) {
+                throw new IllegalStateException("Reference logo logo/reference.png not on the classpath");
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PDPage page(PDDocument document) {
+        PDPage page = new PDPage(PAGE);
+        document.addPage(page);
+        return page;
+    }
+
+    private static void writeText(PDDocument document, String text) throws IOException {
+        try (PDPageContentStream content = new PDPageContentStream(document, page(document))) {
+            line(content, HEADING_FONT, 14, MARGIN, TOP, text);
+        }
+    }
+
+    // baseline in the middle of the region, regions are in top-left coordinates
+    private static void text(PDPageContentStream content, DocumentTemplate.Region region, PDFont font,
+                             float size, String text) throws IOException {
+        DocumentTemplate.Region area = top(region);
+        line(content, font, size, (float) Math.max(area.getX() + 8, 36),
+                (float) (area.getY() + area.getHeight() / 2), text);
+    }
+
+    private static void line(PDPageContentStream content, PDFont font, float size, float x, float y,
+                             String text) throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset(x, PAGE.getHeight() - y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private static DocumentTemplate.Region top(DocumentTemplate.Region region) {
+        if (!region.isFromBottom()) {
+            return region;
+        }
+        DocumentTemplate.Region area = new DocumentTemplate.Region();
+        area.setX(region.getX());
+        area.setY(PAGE.getHeight() - region.getY() - region.getHeight());
+        area.setWidth(region.getWidth());
+        area.setHeight(region.getHeight());
+        return area;
+    }
+
+    private record Heading(String text, int page, float y, int lines, boolean section) {
+    }
+}
@@ -0,0 +1,39 @@
+package binus.thesis.docverifier.corpus;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Set;
+
+// Shape of one generated document
+@Value
+@Builder(toBuilder = true)
+public class CorpusSpec {
+    // total pages, padded with continuation pages between sections, 0 = as few as the content needs
+    @Builder.Default
+    int pageCount = 0;
+    // numbered subsections under every section
+    @Builder.Default
+    int subsections = 2;
+    // text lines under every heading
+    @Builder.Default
+    int paragraphLines = 3;
+    // images drawn on the first page of every section, they make up most of the file size
+    @Builder.Default
+    int imagesPerSection = 0;
+    // image edge in pixels
+    @Builder.Default
+    int imageSize = 256;
+    @Builder.Default
+    Set<Defect> defects = Set.of();
+    // section hit by MISSING_SECTION and EMPTY_SECTION
+    @Builder.Default
+    int defectSection = 1;
+    // same seed, same bytes
+    @Builder.Default
+    long seed = 1L;
+
+    public static CorpusSpec defaults() {
+        return builder().build();
+    }
+}
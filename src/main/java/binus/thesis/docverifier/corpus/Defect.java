@@ -0,0 +1,15 @@
+package binus.thesis.docverifier.corpus;
+
+// Deliberate faults a generated document can carry, each one fails a known check
+public enum Defect {
+    // cover without the document title, fails "1"
+    NO_COVER_TITLE,
+    // cover without the logo image, fails "1" and "logo"
+    NO_LOGO,
+    // approval cells left blank, fails "2"
+    UNSIGNED_APPROVAL,
+    // one required section left out of the document, fails "3" and every check needing a valid TOC
+    MISSING_SECTION,
+    // one section heading without any content under it, fails its section check
+    EMPTY_SECTION
+}
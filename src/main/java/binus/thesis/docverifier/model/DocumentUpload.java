@@ -0,0 +1,25 @@
+package binus.thesis.docverifier.model;
+
+import lombok.Value;
+import lombok.With;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.web.multipart.MultipartFile;
+
+@Value
+public class DocumentUpload {
+    String requestId;
+    String docType;
+    String fileName;
+    long size;
+    InputStreamSource content;
+    @With
+    VerificationMode mode;
+    // report the work behind every parameter
+    @With
+    boolean trace;
+
+    public static DocumentUpload of(MultipartFile docFile, String requestId, String docType) {
+        return new DocumentUpload(requestId, docType, docFile.getOriginalFilename(),
+                docFile.getSize(), docFile, VerificationMode.FULL, false);
+    }
+}
@@ -0,0 +1,24 @@
+package binus.thesis.docverifier.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class JobModel {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    String jobId;
+    String requestId;
+    String docType;
+    Status status;
+    Instant submittedAt;
+    Instant completedAt;
+    ResponseModel result;
+    String error;
+}
@@ -0,0 +1,18 @@
+package binus.thesis.docverifier.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+// Work behind one parameter of a traced verification.
+// wallMillis: from the start of the checks until this one settled, busyMillis: time in its own stages.
+@Value
+public class ParameterTrace {
+    long wallMillis;
+    long busyMillis;
+    int regionReads;
+    int regionCacheHits;
+    List<Integer> pagesTouched;
+    // answered from the result cache, nothing was read
+    boolean cached;
+}
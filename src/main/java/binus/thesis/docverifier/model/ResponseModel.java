@@ -1,7 +1,9 @@
 package binus.thesis.docverifier.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -9,4 +11,16 @@ public class ResponseModel {
     String responseId;
     String docType;
     Map<String, Boolean> parameters;
+    // checks not run because an earlier one failed in fail-fast mode
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    List<String> skipped;
+    // checks stopped by an internal error (unreadable page, OCR timeout), they have no verdict
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    List<String> errors;
+    // why the document has no verdicts: rejected while the service was saturated, unreadable or unsupported
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String error;
+    // per-parameter work, only when the request asked for a trace
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Map<String, ParameterTrace> trace;
 }
@@ -0,0 +1,21 @@
+package binus.thesis.docverifier.model;
+
+// FULL runs every check, FAIL_FAST stops at the first failed check
+public enum VerificationMode {
+    FULL,
+    FAIL_FAST;
+
+    // request values "full" (default) and "failFast"
+    public static VerificationMode of(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        String normalized = value.trim().replace("_", "").replace("-", "");
+        for (VerificationMode mode : values()) {
+            if (mode.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown verification mode: " + value);
+    }
+}
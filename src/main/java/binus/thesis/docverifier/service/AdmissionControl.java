@@ -0,0 +1,218 @@
+package binus.thesis.docverifier.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Limits how many PDFs are open at once and how much heap they are expected to take.
+// Excess requests wait in a bounded first-in first-out queue, then get rejected with a
+// retry hint. Only the head of the queue is admitted, so a stream of small uploads cannot
+// overtake a large one forever.
+@Slf4j
+@Component
+public class AdmissionControl {
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long heapBudget;
+    private final long bytesPerUploadByte;
+    private final long bytesPerPage;
+    private final Duration queueTimeout;
+    private final long retryAfterSeconds;
+    private final Counter rejections;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    // one condition per waiting request, only the head is woken
+    private final ArrayDeque<Condition> waiters = new ArrayDeque<>();
+    // waiters that give up after the queue timeout, the ones max-queued bounds
+    private int boundedWaiters;
+    private int inFlight;
+    private long reserved;
+
+    public AdmissionControl(@Value("${docverifier.admission.max-in-flight:8}") int maxInFlight,
+                            @Value("${docverifier.admission.max-queued:32}") int maxQueued,
+                            @Value("${docverifier.admission.heap-budget:0}") DataSize heapBudget,
+                            @Value("${docverifier.admission.bytes-per-upload-byte:8}") long bytesPerUploadByte,
+                            @Value("${docverifier.admission.bytes-per-page:1MB}") DataSize bytesPerPage,
+                            @Value("${docverifier.admission.queue-timeout:PT10S}") Duration queueTimeout,
+                            @Value("${docverifier.admission.retry-after:PT5S}") Duration retryAfter,
+                            MeterRegistry registry) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = maxQueued;
+        // 0 = 60% of the max heap
+        this.heapBudget = heapBudget.toBytes() > 0 ? heapBudget.toBytes()
+                : (long) (Runtime.getRuntime().maxMemory() * 0.6);
+        this.bytesPerUploadByte = bytesPerUploadByte;
+        this.bytesPerPage = bytesPerPage.toBytes();
+        this.queueTimeout = queueTimeout;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        Gauge.builder("docverifier.admission.in.flight", this, AdmissionControl::getInFlight)
+                .description("Documents being verified").register(registry);
+        Gauge.builder("docverifier.admission.queue.depth", this, AdmissionControl::getQueued)
+                .description("Documents waiting for admission").register(registry);
+        Gauge.builder("docverifier.admission.reserved.bytes", this, AdmissionControl::getReserved)
+                .description("Estimated heap held by admitted documents").register(registry);
+        this.rejections = Counter.builder("docverifier.admission.rejections")
+                .description("Documents rejected because the service was saturated").register(registry);
+        log.info("Admission: {} in flight, {} queued, heap budget {} bytes",
+                this.maxInFlight, maxQueued, this.heapBudget);
+    }
+
+    // estimate from upload size until the page count is known
+    public Permit admit(long uploadSize) {
+        return admit(uploadSize, 1);
+    }
+
+    // copies: parsed instances the document may have at once, itself and its private views
+    public Permit admit(long uploadSize, int copies) {
+        return admit(uploadSize, copies, true);
+    }
+
+    // background work (queued jobs) waits in line as long as it takes instead of being rejected.
+    // Such waiters are few, one per job worker, and are not counted against max-queued
+    public Permit awaitAdmission(long uploadSize, int copies) {
+        return admit(uploadSize, copies, false);
+    }
+
+    private Permit admit(long uploadSize, int copies, boolean bounded) {
+        int instances = Math.max(1, copies);
+        long estimate = Math.max(uploadSize, uploadSize * bytesPerUploadByte) * instances;
+        long deadline = System.nanoTime() + queueTimeout.toNanos();
+        lock.lock();
+        try {
+            if (!waiters.isEmpty() || !fits(estimate)) {
+                if (bounded && boundedWaiters >= maxQueued) {
+                    throw reject("admission queue is full");
+                }
+                Condition turn = lock.newCondition();
+                waiters.addLast(turn);
+                if (bounded) {
+                    boundedWaiters++;
+                }
+                try {
+                    while (waiters.peekFirst() != turn || !fits(estimate)) {
+                        if (!bounded) {
+                            turn.await();
+                            continue;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            throw reject("timed out waiting for admission");
+                        }
+                        turn.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject("interrupted waiting for admission");
+                } finally {
+                    // admitted or given up, the next in line may fit now
+                    waiters.remove(turn);
+                    if (bounded) {
+                        boundedWaiters--;
+                    }
+                    signalHead();
+                }
+            }
+            inFlight++;
+            reserved += estimate;
+            return new Permit(uploadSize, instances, estimate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // a lone document is always admitted, whatever its estimate
+    private boolean fits(long estimate) {
+        return inFlight < maxInFlight && (inFlight == 0 || reserved + estimate <= heapBudget);
+    }
+
+    private void signalHead() {
+        Condition head = waiters.peekFirst();
+        if (head != null) {
+            head.signal();
+        }
+    }
+
+    private AdmissionRejectedException reject(String reason) {
+        rejections.increment();
+        log.info("Verification rejected: {}", reason);
+        return new AdmissionRejectedException(reason, retryAfterSeconds);
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getReserved() {
+        lock.lock();
+        try {
+            return reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public class Permit implements AutoCloseable {
+        private final long uploadSize;
+        private final int copies;
+        private long estimate;
+        private boolean closed;
+
+        private Permit(long uploadSize, int copies, long estimate) {
+            this.uploadSize = uploadSize;
+            this.copies = copies;
+            this.estimate = estimate;
+        }
+
+        // refine the reservation once the document is open, never blocks
+        public void pages(int pageCount) {
+            long refined = Math.max(estimate, (uploadSize + pageCount * bytesPerPage) * copies);
+            lock.lock();
+            try {
+                if (!closed) {
+                    reserved += refined - estimate;
+                    estimate = refined;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    inFlight--;
+                    reserved -= estimate;
+                    signalHead();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
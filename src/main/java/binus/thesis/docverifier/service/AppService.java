@@ -1,11 +1,22 @@
 package binus.thesis.docverifier.service;
 
+import binus.thesis.docverifier.model.DocumentUpload;
 import binus.thesis.docverifier.model.ResponseModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.List;
 
 
 public interface AppService {
 
-    ResponseEntity<ResponseModel> doVerification (MultipartFile docFile, String requestId, String docType);
+    ResponseEntity<ResponseModel> doVerification (MultipartFile docFile, String requestId, String docType, String mode, boolean trace);
+
+    ResponseModel verify (DocumentUpload upload);
+
+    // for background work: waits for admission as long as it takes instead of being rejected
+    ResponseModel verifyWhenAdmitted (DocumentUpload upload);
+
+    ResponseBodyEmitter doBatchVerification (List<MultipartFile> docFiles, List<String> requestIds, List<String> docTypes);
 }
@@ -1,21 +1,41 @@
 package binus.thesis.docverifier.service;
 
-import binus.thesis.docverifier.common.CheckerBRD;
-import binus.thesis.docverifier.common.CheckerPVT;
-import binus.thesis.docverifier.common.CheckerUAT;
-import binus.thesis.docverifier.common.Helper;
+import binus.thesis.docverifier.common.CheckTrace;
+import binus.thesis.docverifier.common.DocumentExecutors;
+import binus.thesis.docverifier.common.DocumentLoader;
+import binus.thesis.docverifier.common.LoadedDocument;
+import binus.thesis.docverifier.common.LogoDetector;
+import binus.thesis.docverifier.common.OcrEngine;
+import binus.thesis.docverifier.common.RegionTextCache;
+import binus.thesis.docverifier.common.TemplateChecker;
+import binus.thesis.docverifier.common.VerificationContext;
+import binus.thesis.docverifier.common.VerificationMetrics;
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.ParameterTrace;
 import binus.thesis.docverifier.model.ResponseModel;
+import binus.thesis.docverifier.model.VerificationMode;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.util.StopWatch;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.File;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 @Slf4j
@@ -38,65 +58,257 @@ public class AppServiceImpl implements AppService {
         http://localhost:8080/swagger-ui/index.html#/app-controller/getTransactions
 
      */
-    public static double PAGE_HEIGHT;
-    public AppServiceImpl() {
-        PAGE_HEIGHT = 0;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private final DocumentLoader documentLoader;
+    private final DocumentExecutors documentExecutors;
+    private final AdmissionControl admissionControl;
+    private final UploadSpool uploadSpool;
+    private final VerificationResultCache resultCache;
+    private final TemplateRegistry templateRegistry;
+    private final OcrEngine ocrEngine;
+    private final RegionTextCache regionCache;
+    private final LogoDetector logoDetector;
+    private final VerificationMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService batchExecutor;
+    private final Duration batchTimeout;
+    public AppServiceImpl(DocumentLoader documentLoader,
+                          DocumentExecutors documentExecutors,
+                          AdmissionControl admissionControl,
+                          UploadSpool uploadSpool,
+                          VerificationResultCache resultCache,
+                          TemplateRegistry templateRegistry,
+                          OcrEngine ocrEngine,
+                          RegionTextCache regionCache,
+                          LogoDetector logoDetector,
+                          VerificationMetrics metrics,
+                          ObjectMapper objectMapper,
+                          @Value("${docverifier.batch.parallelism:4}") int batchParallelism,
+                          @Value("${docverifier.batch.timeout:PT30M}") Duration batchTimeout) {
+        this.documentLoader = documentLoader;
+        this.documentExecutors = documentExecutors;
+        this.admissionControl = admissionControl;
+        this.uploadSpool = uploadSpool;
+        this.resultCache = resultCache;
+        this.templateRegistry = templateRegistry;
+        this.ocrEngine = ocrEngine;
+        this.regionCache = regionCache;
+        this.logoDetector = logoDetector;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        // shared by all batch requests, caps how many batch documents are verified at once
+        this.batchExecutor = Executors.newFixedThreadPool(Math.max(1, batchParallelism));
+        metrics.monitor(batchExecutor, "batch");
+        metrics.monitor(ocrEngine.executor(), "ocr");
+        this.batchTimeout = batchTimeout;
     }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
     @Override
     public ResponseEntity<ResponseModel> doVerification
-            (MultipartFile docFile, String requestId, String docType) {
+            (MultipartFile docFile, String requestId, String docType, String mode, boolean trace) {
+        return ResponseEntity.ok(verify(DocumentUpload.of(docFile, requestId, docType)
+                .withMode(verificationMode(mode))
+                .withTrace(trace)));
+    }
+
+    static VerificationMode verificationMode(String mode) {
+        try {
+            return VerificationMode.of(mode);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ResponseBodyEmitter doBatchVerification
+            (List<MultipartFile> docFiles, List<String> requestIds, List<String> docTypes) {
+        if (docFiles.size() != requestIds.size() || docFiles.size() != docTypes.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "docFile, requestId and docType must have the same number of values");
+        }
+        // spool every file now, the multipart parts are gone once this request thread returns.
+        // A batch that does not fit the spool is rejected as a whole
+        List<UploadSpool.Entry> uploads = new ArrayList<>(docFiles.size());
+        try {
+            for (int i = 0; i < docFiles.size(); i++) {
+                uploads.add(uploadSpool.spool(docFiles.get(i), requestIds.get(i), docTypes.get(i)));
+            }
+        } catch (IOException | RuntimeException e) {
+            uploads.forEach(UploadSpool.Entry::close);
+            if (e instanceof IOException) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unreadable docFile for request " + requestIds.get(uploads.size()), e);
+            }
+            throw (RuntimeException) e;
+        }
+        log.info("================ BATCH VERIFICATION START: {} documents ===================", uploads.size());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeout.toMillis());
+        // one line per document, written as soon as that document is done, its file deleted right after
+        CompletableFuture<?>[] tasks = uploads.stream()
+                .map(entry -> CompletableFuture.runAsync(() -> {
+                    try (entry) {
+                        emit(emitter, verifyInBatch(entry.getUpload()));
+                    }
+                }, batchExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).whenComplete((done, e) -> emitter.complete());
+        return emitter;
+    }
+
+    // a saturated service answers the document with an error line instead of failing the batch
+    private ResponseModel verifyInBatch(DocumentUpload upload) {
+        try {
+            return verify(upload);
+        } catch (AdmissionRejectedException e) {
+            ResponseModel rejected = new ResponseModel();
+            rejected.setResponseId(upload.getRequestId());
+            rejected.setDocType(upload.getDocType());
+            rejected.setParameters(new HashMap<>());
+            rejected.setError("Rejected: " + e.getMessage() + ", retry after " + e.getRetryAfterSeconds() + "s");
+            return rejected;
+        }
+    }
+
+    private void emit(ResponseBodyEmitter emitter, ResponseModel result) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(result) + "\n", NDJSON);
+        } catch (IOException | IllegalStateException e) {
+            log.info("Batch result {} not delivered: {}", result.getResponseId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public ResponseModel verify(DocumentUpload upload) {
+        return verify(upload, false);
+    }
+
+    @Override
+    public ResponseModel verifyWhenAdmitted(DocumentUpload upload) {
+        return verify(upload, true);
+    }
+
+    private ResponseModel verify(DocumentUpload upload, boolean waitForAdmission) {
+        String requestId = upload.getRequestId();
+        String docType = upload.getDocType();
         ResponseModel responseModel = new ResponseModel();
         StopWatch stopwatch = new StopWatch();
         stopwatch.start();
         log.info("================ DO VERIFICATION START:{} ===================", requestId);
-        File tempFile = null;
         Map<String, Boolean> validationResult = new HashMap<>();
+        List<String> skipped = null;
+        List<String> errors = null;
+        String error = null;
+        Map<String, ParameterTrace> trace = null;
+        String outcome = "failed";
+        CheckPlan plan = null;
         try {
-            // 1. Collect the document
-            log.info("File masuk: " + docFile.getOriginalFilename());
-            DateTimeFormatter formatter = DateTimeFormatter
-                .ofPattern("yyyyMMddHHmmss");
-            tempFile = new File(System.getProperty("java.io.tmpdir")
-                    + File.separator + formatter + "_in.pdf");
-            docFile.transferTo(tempFile);
-            log.info("File temp: " + tempFile.getName());
-            PDDocument document = PDDocument.load(
-                    tempFile);
-                    //MemoryUsageSetting.setupTempFileOnly()
-                    //MemoryUsageSetting.setupMixed(2 * 1024 * 1024)
-            //);
-
-            // 3. Go To Verification Process Based on Type
-            if (docType.trim().equalsIgnoreCase("BRD")) {
-                validationResult = new CheckerBRD().processBRD(document);
-            } else if (docType.trim().equalsIgnoreCase("UAT")) {
-                validationResult = new CheckerUAT().processUAT(document);
-            } else if (docType.trim().equalsIgnoreCase("PVT")) {
-                validationResult = new CheckerPVT().processPVT(document);
-            } else {
+            // 1. Collect the document, parsed per request straight from the upload
+            log.info("File masuk: {}", upload.getFileName());
+            plan = templateRegistry.find(docType);
+            if (plan == null) {
                 throw new IllegalArgumentException("Unsupported document type: " + docType);
             }
-            document.close();
+            // 2. Same content already verified with the same rules ?
+            String cacheKey = null;
+            Map<String, Boolean> cached = null;
+            if (resultCache.isEnabled()) {
+                cacheKey = resultCache.keyOf(upload, plan.getRuleVersion());
+                cached = resultCache.get(cacheKey);
+            }
+            if (cached != null) {
+                log.info("Result cache hit for request {}", requestId);
+                validationResult = new HashMap<>(cached);
+                outcome = "cached";
+                if (upload.isTrace()) {
+                    trace = CheckTrace.cached(validationResult.keySet());
+                }
+            } else {
+                // every private view is a full parse of its own
+                int copies = 1 + documentLoader.viewsFor(upload);
+                try (AdmissionControl.Permit permit = waitForAdmission
+                        ? admissionControl.awaitAdmission(upload.getSize(), copies)
+                        : admissionControl.admit(upload.getSize(), copies);
+                     LoadedDocument loaded = open(upload, plan)) {
+                    PDDocument document = loaded.getDocument();
+                    permit.pages(document.getNumberOfPages());
+                    // 3. Go To Verification Process Based on Type
+                    CheckTrace checkTrace = upload.isTrace() ? new CheckTrace() : null;
+                    Checked checked = check(new VerificationContext(document, loaded.getViews()), plan,
+                            upload.getMode(), checkTrace);
+                    validationResult = checked.results();
+                    if (!checked.errors().isEmpty()) {
+                        errors = new ArrayList<>(checked.errors());
+                        Collections.sort(errors);
+                    }
+                    if (checkTrace != null) {
+                        trace = checkTrace.parameters();
+                    }
+                }
+                // a fail-fast answer is partial and an errored check has no verdict,
+                // only complete results of error-free checks are reused
+                List<String> unsettled = plan.unsettled(validationResult.keySet());
+                if (errors != null) {
+                    unsettled.removeAll(errors);
+                }
+                if (!unsettled.isEmpty()) {
+                    skipped = unsettled;
+                }
+                if (skipped == null && errors == null && cacheKey != null) {
+                    resultCache.put(cacheKey, validationResult);
+                }
+                outcome = "verified";
+            }
+        } catch (AdmissionRejectedException ae) {
+            outcome = "rejected";
+            throw ae;
         } catch (IOException ie) {
             log.info("[IO] Something wrong at doVerification: {}", ie.getMessage());
+            error = "Unreadable document: " + ie.getMessage();
         } catch (Exception e) {
-            e.printStackTrace();
-            log.info("[E] Something wrong at doVerification: {}", e.getMessage());
+            log.error("[E] Something wrong at doVerification of request {}", requestId, e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
         } finally {
-            // reset
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
-            }
             // response time log
             stopwatch.stop();
             log.info("Response Time: {} ms", stopwatch.getTotalTimeMillis());
-            // set up body response
-            responseModel.setResponseId(requestId);
-            responseModel.setDocType(docType);
-            responseModel.setParameters(validationResult);
-            return ResponseEntity.ok(responseModel);
+            // tagged with the template's type, a type without template is "unknown"
+            metrics.verificationCompleted(plan, outcome, stopwatch.getTotalTimeNanos());
+        }
+        // set up body response
+        responseModel.setResponseId(requestId);
+        responseModel.setDocType(docType);
+        responseModel.setParameters(validationResult);
+        responseModel.setSkipped(skipped);
+        responseModel.setErrors(errors);
+        responseModel.setError(error);
+        responseModel.setTrace(trace);
+        return responseModel;
+    }
+
+    private LoadedDocument open(DocumentUpload upload, CheckPlan plan) throws IOException {
+        long start = System.nanoTime();
+        LoadedDocument loaded = documentLoader.open(upload);
+        metrics.documentLoaded(plan, System.nanoTime() - start);
+        return loaded;
+    }
+
+    private Checked check(VerificationContext context, CheckPlan plan, VerificationMode mode, CheckTrace trace) {
+        try (DocumentExecutors.DocumentScope scope = documentExecutors.open()) {
+            TemplateChecker checker = new TemplateChecker(plan, scope.executor(), ocrEngine, regionCache,
+                    logoDetector, mode == VerificationMode.FAIL_FAST);
+            checker.observe(metrics.observer(plan).andThen(trace));
+            Map<String, Boolean> results = checker.process(context);
+            return new Checked(results, checker.errors());
         }
     }
+
+    private record Checked(Map<String, Boolean> results, Set<String> errors) {
+    }
     // referensi itungan titik y
     // https://www3.ntu.edu.sg/home/ehchua/programming/java/J8b_Game_2DGraphics.html
 }
\ No newline at end of file
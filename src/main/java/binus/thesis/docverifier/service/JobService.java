@@ -0,0 +1,14 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.model.JobModel;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface JobService {
+
+    JobModel submit (MultipartFile docFile, String requestId, String docType, String mode, boolean trace);
+
+    JobModel getJob (String jobId);
+
+    SseEmitter subscribe (String jobId);
+}
@@ -0,0 +1,208 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.common.VerificationMetrics;
+import binus.thesis.docverifier.model.JobModel;
+import binus.thesis.docverifier.model.ResponseModel;
+import binus.thesis.docverifier.model.VerificationMode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Verification jobs run on their own bounded queue, so request threads only
+// accept the upload and hand back a job id. A queued job waits as a spooled file,
+// its worker waits for admission instead of failing the job, and finished jobs are
+// purged on a schedule after the retention period.
+@Service
+@Slf4j
+public class JobServiceImpl implements JobService {
+    private final AppService appService;
+    private final UploadSpool uploadSpool;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ScheduledExecutorService purger;
+    private final Duration retention;
+    private final Duration subscriptionTimeout;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public JobServiceImpl(AppService appService,
+                          UploadSpool uploadSpool,
+                          VerificationMetrics metrics,
+                          @Value("${docverifier.jobs.workers:4}") int workers,
+                          @Value("${docverifier.jobs.queue-capacity:100}") int queueCapacity,
+                          @Value("${docverifier.jobs.retention:PT1H}") Duration retention,
+                          @Value("${docverifier.jobs.subscription-timeout:PT5M}") Duration subscriptionTimeout,
+                          @Value("${docverifier.jobs.purge-interval:PT1M}") Duration purgeInterval) {
+        this.appService = appService;
+        this.uploadSpool = uploadSpool;
+        this.retention = retention;
+        this.subscriptionTimeout = subscriptionTimeout;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.jobExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "verification-job-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        metrics.monitor(jobExecutor, "jobs");
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "verification-job-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, purgeInterval.toMillis());
+        purger.scheduleAtFixedRate(this::purgeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+        jobExecutor.shutdownNow();
+    }
+
+    @Override
+    public JobModel submit(MultipartFile docFile, String requestId, String docType, String mode,
+                           boolean trace) {
+        VerificationMode verificationMode = AppServiceImpl.verificationMode(mode);
+        // on disk until a worker takes it, a full spool answers 429
+        UploadSpool.Entry upload;
+        try {
+            upload = uploadSpool.spool(docFile, requestId, docType, verificationMode, trace);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unreadable docFile", e);
+        }
+        Job job = new Job(UUID.randomUUID().toString(), requestId, docType);
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> run(job, upload));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            upload.close();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Verification queue is full");
+        }
+        log.info("Job {} queued for request {}", job.id, requestId);
+        return job.toModel();
+    }
+
+    @Override
+    public JobModel getJob(String jobId) {
+        return find(jobId).toModel();
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        Job job = find(jobId);
+        SseEmitter emitter = new SseEmitter(subscriptionTimeout.toMillis());
+        synchronized (job) {
+            if (!job.isFinished()) {
+                job.subscribers.add(emitter);
+                emitter.onCompletion(() -> job.subscribers.remove(emitter));
+                emitter.onTimeout(() -> job.subscribers.remove(emitter));
+                return emitter;
+            }
+        }
+        publish(emitter, job.toModel());
+        return emitter;
+    }
+
+    private void run(Job job, UploadSpool.Entry upload) {
+        job.status = JobModel.Status.RUNNING;
+        try (upload) {
+            // a busy service delays the job, it does not fail it
+            job.result = appService.verifyWhenAdmitted(upload.getUpload());
+            job.status = JobModel.Status.DONE;
+        } catch (Exception e) {
+            log.info("Something wrong at job {}: {}", job.id, e.getMessage());
+            job.error = e.getMessage();
+            job.status = JobModel.Status.FAILED;
+        }
+        List<SseEmitter> subscribers;
+        synchronized (job) {
+            job.completedAt = Instant.now();
+            subscribers = List.copyOf(job.subscribers);
+            job.subscribers.clear();
+        }
+        JobModel finished = job.toModel();
+        for (SseEmitter emitter : subscribers) {
+            publish(emitter, finished);
+        }
+    }
+
+    private void publish(SseEmitter emitter, JobModel job) {
+        try {
+            emitter.send(SseEmitter.event().name("result").data(job));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.info("Job {} result not delivered: {}", job.getJobId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private Job find(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + jobId);
+        }
+        return job;
+    }
+
+    private void purgeExpired() {
+        Instant limit = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(limit));
+    }
+
+    private static class Job {
+        final String id;
+        final String requestId;
+        final String docType;
+        final Instant submittedAt = Instant.now();
+        final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        volatile JobModel.Status status = JobModel.Status.QUEUED;
+        volatile Instant completedAt;
+        volatile ResponseModel result;
+        volatile String error;
+
+        Job(String id, String requestId, String docType) {
+            this.id = id;
+            this.requestId = requestId;
+            this.docType = docType;
+        }
+
+        boolean isFinished() {
+            return completedAt != null;
+        }
+
+        JobModel toModel() {
+            JobModel model = new JobModel();
+            model.setJobId(id);
+            model.setRequestId(requestId);
+            model.setDocType(docType);
+            model.setStatus(status);
+            model.setSubmittedAt(submittedAt);
+            model.setCompletedAt(completedAt);
+            model.setResult(result);
+            model.setError(error);
+            return model;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.VerificationMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Uploads verified after their multipart request is gone (batch documents, queued jobs)
+// wait here as files instead of byte arrays on the heap. The total size is bounded,
+// an upload that does not fit is rejected with a retry hint like a saturated admission.
+@Slf4j
+@Component
+public class UploadSpool {
+    private static final String PREFIX = "upload-";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long retryAfterSeconds;
+    private long used;
+
+    public UploadSpool(@Value("${docverifier.spool.directory:}") String directory,
+                       @Value("${docverifier.spool.max-size:1GB}") DataSize maxSize,
+                       @Value("${docverifier.admission.retry-after:PT5S}") Duration retryAfter,
+                       MeterRegistry registry) throws IOException {
+        this.directory = directory.isBlank() ? Files.createTempDirectory("docverifier-spool")
+                : Files.createDirectories(Path.of(directory));
+        this.maxBytes = maxSize.toBytes();
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        purgeLeftovers();
+        Gauge.builder("docverifier.spool.bytes", this, UploadSpool::getUsed)
+                .description("Bytes of uploads waiting on disk").register(registry);
+        log.info("Upload spool {} up to {} bytes", this.directory, maxBytes);
+    }
+
+    public Entry spool(MultipartFile docFile, String requestId, String docType) throws IOException {
+        return spool(docFile, requestId, docType, VerificationMode.FULL, false);
+    }
+
+    // the part copied to a file of its own, readable until the entry is closed
+    public Entry spool(MultipartFile docFile, String requestId, String docType, VerificationMode mode,
+                       boolean trace) throws IOException {
+        long size = docFile.getSize();
+        reserve(size);
+        Path file = null;
+        try {
+            file = Files.createTempFile(directory, PREFIX, ".pdf");
+            docFile.transferTo(file);
+        } catch (IOException | RuntimeException e) {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+            release(size);
+            throw e;
+        }
+        DocumentUpload upload = new DocumentUpload(requestId, docType, docFile.getOriginalFilename(), size,
+                new FileSystemResource(file), mode, trace);
+        return new Entry(upload, file, size);
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    private synchronized void reserve(long size) {
+        if (used + size > maxBytes) {
+            log.info("Upload of {} bytes rejected, spool holds {} of {} bytes", size, used, maxBytes);
+            throw new AdmissionRejectedException("upload spool is full", retryAfterSeconds);
+        }
+        used += size;
+    }
+
+    private synchronized void release(long size) {
+        used -= size;
+    }
+
+    // files of a previous run that stopped before verifying them
+    private void purgeLeftovers() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public class Entry implements AutoCloseable {
+        @Getter
+        private final DocumentUpload upload;
+        private final Path file;
+        private final long size;
+        private boolean closed;
+
+        private Entry(DocumentUpload upload, Path file, long size) {
+            this.upload = upload;
+            this.file = file;
+            this.size = size;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Spooled upload {} not deleted: {}", file, e.getMessage());
+            }
+            release(size);
+        }
+    }
+}
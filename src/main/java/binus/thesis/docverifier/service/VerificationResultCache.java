@@ -0,0 +1,124 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.model.DocumentUpload;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Verification results keyed by upload content, so a re-submitted PDF is
+// answered without parsing it again. Bounded LRU with a time-to-live per entry.
+@Slf4j
+@Component
+public class VerificationResultCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CachedResult> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public VerificationResultCache(@Value("${docverifier.cache.max-entries:1000}") int maxEntries,
+                                   @Value("${docverifier.cache.ttl:PT1H}") Duration ttl,
+                                   MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > VerificationResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("docverifier.result.cache.size", this, VerificationResultCache::size)
+                .description("Cached verification results").register(registry);
+        FunctionCounter.builder("docverifier.result.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.result.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("docverifier.result.cache.evictions", evictions, AtomicLong::get).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlMillis > 0;
+    }
+
+    // sha-256 of the upload bytes + document type + rule version
+    public String keyOf(DocumentUpload upload, String ruleVersion) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = upload.getContent().getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest())
+                + ":" + upload.getDocType().trim().toUpperCase(Locale.ROOT) + ":" + ruleVersion;
+    }
+
+    public synchronized Map<String, Boolean> get(String key) {
+        CachedResult cached = entries.get(key);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.parameters();
+    }
+
+    public synchronized void put(String key, Map<String, Boolean> parameters) {
+        if (!isEnabled()) {
+            return;
+        }
+        entries.put(key, new CachedResult(Map.copyOf(parameters),
+                System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedResult(Map<String, Boolean> parameters, long expiresAt) {
+    }
+}
@@ -0,0 +1,204 @@
+package binus.thesis.docverifier.template;
+
+import binus.thesis.docverifier.common.KeywordMatcher;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Value;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// A document template compiled into the checks to run. Identical regions and
+// page searches are shared, so checks reading the same area reuse one extraction.
+@Getter
+public class CheckPlan {
+    public static final String COVER = "1";
+    public static final String APPROVAL = "2";
+    public static final String TABLE_OF_CONTENT = "3";
+    public static final String LOGO = "logo";
+    private static final int FIRST_SECTION_ID = 4;
+
+    private final String docType;
+    private final String ruleVersion;
+    private final List<PageSearch> searches;
+    private final List<RegionRule> coverRules;
+    private final LogoRule logoRule;
+    private final int approvalSearch;
+    private final List<RegionRule> approvalRules;
+    private final int tocSearch;
+    private final RegionRule tocRule;
+    private final TocFormat tocFormat;
+    private final List<String> requiredSections;
+    // every required title in one scan, a cheap reject before the exact title check
+    private final KeywordMatcher sectionMatcher;
+    private final List<SectionRule> sectionRules;
+    // ids of every check in response order
+    private final List<String> checkIds;
+
+    private CheckPlan(Builder builder) {
+        this.docType = builder.docType;
+        this.ruleVersion = builder.ruleVersion;
+        this.searches = List.copyOf(builder.searches.values());
+        this.coverRules = List.copyOf(builder.coverRules);
+        this.logoRule = builder.logoRule;
+        this.approvalSearch = builder.approvalSearch;
+        this.approvalRules = List.copyOf(builder.approvalRules);
+        this.tocSearch = builder.tocSearch;
+        this.tocRule = builder.tocRule;
+        this.tocFormat = builder.tocFormat;
+        this.requiredSections = List.copyOf(builder.requiredSections);
+        this.sectionMatcher = KeywordMatcher.of(requiredSections);
+        this.sectionRules = List.copyOf(builder.sectionRules);
+        List<String> ids = new ArrayList<>(List.of(COVER));
+        if (logoRule != null) {
+            ids.add(LOGO);
+        }
+        ids.addAll(List.of(APPROVAL, TABLE_OF_CONTENT));
+        sectionRules.forEach(rule -> ids.add(rule.getId()));
+        this.checkIds = List.copyOf(ids);
+    }
+
+    public static CheckPlan compile(DocumentTemplate template, String ruleVersion) {
+        Builder builder = new Builder();
+        builder.docType = required(template.getDocType(), "docType").trim().toUpperCase(Locale.ROOT);
+        builder.ruleVersion = ruleVersion;
+        for (DocumentTemplate.Cell cell : template.getCover()) {
+            builder.coverRules.add(builder.rule(cell.getName(), cell.getRegion(), cell.getContains()));
+        }
+        DocumentTemplate.Logo logo = template.getLogo();
+        if (logo != null) {
+            builder.logoRule = new LogoRule(builder.rule("LOGO", logo.getRegion(), null), logo.getMaxDistance());
+        }
+        DocumentTemplate.Approval approval = required(template.getApproval(), "approval");
+        builder.approvalSearch = builder.search(approval.getSearch());
+        for (DocumentTemplate.Cell cell : approval.getCells()) {
+            builder.approvalRules.add(builder.rule(cell.getName(), cell.getRegion(), cell.getContains()));
+        }
+        DocumentTemplate.TableOfContentSpec toc = required(template.getTableOfContent(), "tableOfContent");
+        builder.tocSearch = builder.search(toc.getSearch());
+        builder.tocRule = builder.rule("CONTENT_" + builder.docType, toc.getRegion(), null);
+        builder.tocFormat = required(toc.getFormat(), "tableOfContent.format");
+
+        // section i runs from its own title up to the next title, the last one to the end
+        List<DocumentTemplate.Section> sections = template.getSections();
+        int id = FIRST_SECTION_ID;
+        for (int i = 0; i < sections.size(); i++) {
+            DocumentTemplate.Section section = sections.get(i);
+            String title = required(section.getTitle(), "sections.title").trim().toUpperCase(Locale.ROOT);
+            builder.requiredSections.add(title);
+            if (section.isVerify()) {
+                String next = i + 1 < sections.size() ? sections.get(i + 1).getTitle().trim().toUpperCase(Locale.ROOT) : "";
+                builder.sectionRules.add(new SectionRule(String.valueOf(id++), title, next,
+                        section.isRequireValidToc()));
+            }
+        }
+        return new CheckPlan(builder);
+    }
+
+    // check ids without a result, in response order
+    public List<String> unsettled(Collection<String> settled) {
+        List<String> rest = new ArrayList<>(checkIds);
+        rest.removeAll(settled);
+        return rest;
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Template field '" + field + "' is missing");
+        }
+        return value;
+    }
+
+    @Value
+    public static class PageSearch {
+        int startPage;
+        String keyword;
+        Rectangle2D region;
+        @EqualsAndHashCode.Exclude
+        KeywordMatcher matcher;
+    }
+
+    @Value
+    public static class RegionRule {
+        String name;
+        Rectangle2D region;
+        boolean fromBottom;
+        String contains;
+        KeywordMatcher matcher;
+
+        public Rectangle2D area(double pageHeight) {
+            if (!fromBottom) {
+                return region;
+            }
+            return new Rectangle2D.Double(region.getX(), pageHeight - region.getY() - region.getHeight(),
+                    region.getWidth(), region.getHeight());
+        }
+
+        public boolean accepts(String text) {
+            return !text.isEmpty() && (matcher == null || matcher.containsAny(text));
+        }
+    }
+
+    @Value
+    public static class LogoRule {
+        RegionRule area;
+        int maxDistance;
+    }
+
+    @Value
+    public static class SectionRule {
+        String id;
+        String startKey;
+        String endKey;
+        boolean requireValidToc;
+    }
+
+    private static class Builder {
+        private final Map<Rectangle2D, Rectangle2D> regions = new LinkedHashMap<>();
+        private final Map<PageSearch, PageSearch> searches = new LinkedHashMap<>();
+        private final List<RegionRule> coverRules = new ArrayList<>();
+        private LogoRule logoRule;
+        private final List<RegionRule> approvalRules = new ArrayList<>();
+        private final List<String> requiredSections = new ArrayList<>();
+        private final List<SectionRule> sectionRules = new ArrayList<>();
+        private String docType;
+        private String ruleVersion;
+        private int approvalSearch;
+        private int tocSearch;
+        private RegionRule tocRule;
+        private TocFormat tocFormat;
+
+        // one shared rectangle per distinct area
+        private Rectangle2D region(DocumentTemplate.Region spec, String owner) {
+            required(spec, owner + ".region");
+            if (spec.getWidth() <= 0 || spec.getHeight() <= 0) {
+                throw new IllegalArgumentException("Region of '" + owner + "' must have a positive size");
+            }
+            Rectangle2D region = new Rectangle2D.Double(spec.getX(), spec.getY(), spec.getWidth(), spec.getHeight());
+            return regions.computeIfAbsent(region, r -> r);
+        }
+
+        private RegionRule rule(String name, DocumentTemplate.Region spec, String contains) {
+            required(name, "name");
+            return contains == null
+                    ? new RegionRule(name, region(spec, name), spec.isFromBottom(), null, null)
+                    : new RegionRule(name, region(spec, name), spec.isFromBottom(),
+                    contains.toUpperCase(Locale.ROOT), KeywordMatcher.of(contains));
+        }
+
+        // identical searches collapse into one, returns its index
+        private int search(DocumentTemplate.PageSearch spec) {
+            required(spec, "search");
+            String keyword = required(spec.getKeyword(), "search.keyword").toUpperCase(Locale.ROOT);
+            PageSearch search = new PageSearch(spec.getStartPage(), keyword,
+                    region(spec.getRegion(), "search"), KeywordMatcher.of(keyword));
+            PageSearch shared = searches.computeIfAbsent(search, s -> s);
+            return new ArrayList<>(searches.keySet()).indexOf(shared);
+        }
+    }
+}
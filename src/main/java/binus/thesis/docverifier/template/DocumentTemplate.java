@@ -0,0 +1,71 @@
+package binus.thesis.docverifier.template;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// JSON definition of one document type, see resources/doc-templates
+@Data
+public class DocumentTemplate {
+    private String docType;
+    private String version;
+    private List<Cell> cover = new ArrayList<>();
+    private Logo logo;
+    private Approval approval;
+    private TableOfContentSpec tableOfContent;
+    private List<Section> sections = new ArrayList<>();
+
+    @Data
+    public static class Region {
+        private double x;
+        private double y;
+        private double width;
+        private double height;
+        // y counted from the bottom edge of the page
+        private boolean fromBottom;
+    }
+
+    @Data
+    public static class PageSearch {
+        private int startPage;
+        private String keyword;
+        private Region region;
+    }
+
+    // region that must hold text, optionally containing a phrase
+    @Data
+    public static class Cell {
+        private String name;
+        private Region region;
+        private String contains;
+    }
+
+    // image drawn over the region, compared with the reference logo
+    @Data
+    public static class Logo {
+        private Region region;
+        // differing hash bits still accepted, out of 64
+        private int maxDistance = 10;
+    }
+
+    @Data
+    public static class Approval {
+        private PageSearch search;
+        private List<Cell> cells = new ArrayList<>();
+    }
+
+    @Data
+    public static class TableOfContentSpec {
+        private PageSearch search;
+        private Region region;
+        private TocFormat format;
+    }
+
+    @Data
+    public static class Section {
+        private String title;
+        private boolean verify = true;
+        private boolean requireValidToc = true;
+    }
+}
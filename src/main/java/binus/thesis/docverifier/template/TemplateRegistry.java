@@ -0,0 +1,69 @@
+package binus.thesis.docverifier.template;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Compiled check plans by document type. Templates are read at startup and on
+// reload, a template that does not compile leaves the running plans in place.
+@Slf4j
+@Component
+public class TemplateRegistry {
+    private final String location;
+    private final ObjectMapper objectMapper;
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private final AtomicReference<Map<String, CheckPlan>> plans = new AtomicReference<>(Collections.emptyMap());
+
+    public TemplateRegistry(@Value("${docverifier.templates.location:classpath:doc-templates/}") String location,
+                            ObjectMapper objectMapper) throws IOException {
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.objectMapper = objectMapper;
+        reload();
+    }
+
+    public CheckPlan find(String docType) {
+        return docType == null ? null : plans.get().get(docType.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Map<String, CheckPlan> plans() {
+        return plans.get();
+    }
+
+    public synchronized Map<String, CheckPlan> reload() throws IOException {
+        Map<String, CheckPlan> compiled = new LinkedHashMap<>();
+        for (Resource resource : resolver.getResources(location + "*.json")) {
+            byte[] source;
+            try (InputStream in = resource.getInputStream()) {
+                source = in.readAllBytes();
+            }
+            DocumentTemplate template = objectMapper.readValue(source, DocumentTemplate.class);
+            // same version with edited content still gets a new rule version
+            String ruleVersion = template.getVersion() + "-"
+                    + DigestUtils.md5DigestAsHex(source).substring(0, 8);
+            CheckPlan plan;
+            try {
+                plan = CheckPlan.compile(template, ruleVersion);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(resource.getFilename() + ": " + e.getMessage(), e);
+            }
+            if (compiled.putIfAbsent(plan.getDocType(), plan) != null) {
+                throw new IllegalArgumentException("Duplicate template for document type " + plan.getDocType());
+            }
+        }
+        plans.set(Collections.unmodifiableMap(compiled));
+        log.info("Document templates loaded: {}", compiled.keySet());
+        return compiled;
+    }
+}
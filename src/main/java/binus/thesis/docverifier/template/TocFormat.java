@@ -0,0 +1,51 @@
+package binus.thesis.docverifier.template;
+
+import binus.thesis.docverifier.common.TableOfContent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// How the entries of a table of content are laid out
+public enum TocFormat {
+    // "1. Title ........ 3", entries may wrap
+    DOTTED {
+        private final Pattern pattern = Pattern.compile("([A-Za-z0-9\\.\\s]+?)\\s+\\.\\.{2,}\\s+(\\d+)");
+
+        @Override
+        public List<TableOfContent.Entry> parse(String tocContent) {
+            List<TableOfContent.Entry> entries = new ArrayList<>();
+            Matcher matcher = pattern.matcher(tocContent);
+            while (matcher.find()) {
+                String heading = matcher.group(1).trim();
+                int page = Integer.parseInt(matcher.group(2).trim());
+                entries.add(TableOfContent.entry(heading, page));
+            }
+            return entries;
+        }
+    },
+    // one "1 TITLE ........ 3" entry per line
+    NUMBERED_LINES {
+        private final Pattern lineBreaks = Pattern.compile("[\\r\\n]+");
+        private final Pattern pattern = Pattern.compile("(?m)^\\s*(\\d+)\\s*([A-Z0-9 \\-]+?)\\s*\\.{3,}\\s*(\\d+)\\s*$");
+        private final Pattern spaces = Pattern.compile("\\s{2,}");
+
+        @Override
+        public List<TableOfContent.Entry> parse(String tocContent) {
+            List<TableOfContent.Entry> entries = new ArrayList<>();
+            for (String line : lineBreaks.split(tocContent)) {
+                Matcher matcher = pattern.matcher(line.trim());
+                if (matcher.find()) {
+                    int num = Integer.parseInt(matcher.group(1).trim());
+                    String title = spaces.matcher(matcher.group(2).trim()).replaceAll(" ");
+                    int page = Integer.parseInt(matcher.group(3).trim());
+                    entries.add(TableOfContent.entry(num + " " + title, page));
+                }
+            }
+            return entries;
+        }
+    };
+
+    public abstract List<TableOfContent.Entry> parse(String tocContent);
+}
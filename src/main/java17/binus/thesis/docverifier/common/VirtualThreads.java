@@ -0,0 +1,17 @@
+package binus.thesis.docverifier.common;
+
+import java.util.concurrent.ExecutorService;
+
+// Java 17 build: no virtual threads. The java21 profile compiles src/main/java21 in place of this file.
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean isAvailable() {
+        return false;
+    }
+
+    static ExecutorService newThreadPerTaskExecutor() {
+        throw new IllegalStateException("Virtual threads need a build with -Pjava21");
+    }
+}
@@ -0,0 +1,18 @@
+package binus.thesis.docverifier.common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Java 21 build (-Pjava21): every task gets a new virtual thread.
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean isAvailable() {
+        return true;
+    }
+
+    static ExecutorService newThreadPerTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,62 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.model.ParameterTrace;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckTraceTest {
+
+    @Test
+    void readsBelongToTheStageRunningOnTheThread() {
+        CheckTrace trace = new CheckTrace();
+        trace.stageStarted("1");
+        trace.regionRead(1, CheckObserver.RegionSource.TEXT, 1_000);
+        trace.regionRead(1, CheckObserver.RegionSource.CACHE, 1_000);
+        trace.stageFinished("1", 2_000_000);
+        // outside any stage, nobody to attribute to
+        trace.regionRead(5, CheckObserver.RegionSource.TEXT, 1_000);
+        trace.checkCompleted("1", true, 3_000_000);
+
+        ParameterTrace parameter = trace.parameters().get("1");
+        assertEquals(2, parameter.getRegionReads());
+        assertEquals(1, parameter.getRegionCacheHits());
+        assertEquals(List.of(1), parameter.getPagesTouched());
+        assertEquals(2, parameter.getBusyMillis());
+        assertEquals(3, parameter.getWallMillis());
+    }
+
+    @Test
+    void nestedStageHandsTheThreadBackToTheEnclosingStage() {
+        CheckTrace trace = new CheckTrace();
+        trace.stageStarted("outer");
+        trace.regionRead(1, CheckObserver.RegionSource.TEXT, 1_000);
+        trace.stageStarted("inner");
+        trace.regionRead(2, CheckObserver.RegionSource.CACHE, 1_000);
+        trace.headingLookup(3, 1_000);
+        trace.stageFinished("inner", 1_000);
+        trace.regionRead(4, CheckObserver.RegionSource.TEXT, 1_000);
+        CheckObserver detached = trace.detach();
+        trace.stageFinished("outer", 1_000);
+        // an OCR read finishing later on another thread still counts for the stage that started it
+        detached.regionRead(6, CheckObserver.RegionSource.OCR, 1_000);
+
+        Map<String, ParameterTrace> parameters = trace.parameters();
+        assertEquals(3, parameters.get("outer").getRegionReads());
+        assertEquals(List.of(1, 4, 6), parameters.get("outer").getPagesTouched());
+        assertEquals(1, parameters.get("inner").getRegionReads());
+        assertEquals(1, parameters.get("inner").getRegionCacheHits());
+        assertEquals(List.of(2, 3), parameters.get("inner").getPagesTouched());
+    }
+
+    @Test
+    void cachedResultsDidNoWork() {
+        Map<String, ParameterTrace> parameters = CheckTrace.cached(List.of("1", "2"));
+        assertEquals(2, parameters.size());
+        assertTrue(parameters.values().stream().allMatch(p -> p.isCached() && p.getRegionReads() == 0));
+    }
+}
@@ -0,0 +1,114 @@
+package binus.thesis.docverifier.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DocumentExecutorsTest {
+    private final DocumentExecutors platform = new DocumentExecutors("platform", Duration.ofSeconds(10));
+
+    @Test
+    void closeJoinsEveryForkedTask() {
+        AtomicInteger done = new AtomicInteger();
+        try (DocumentExecutors.DocumentScope scope = platform.open()) {
+            for (int i = 0; i < 8; i++) {
+                scope.executor().execute(() -> {
+                    sleep(50);
+                    done.incrementAndGet();
+                });
+            }
+        }
+        assertEquals(8, done.get());
+    }
+
+    @Test
+    void failedTaskCancelsItsSiblings() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        RuntimeException broken = new RuntimeException("broken");
+        DocumentExecutors.DocumentScope scope = platform.open();
+        scope.executor().execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scope.executor().execute(() -> {
+            throw broken;
+        });
+        IllegalStateException failure = assertThrows(IllegalStateException.class, scope::close);
+        assertSame(broken, failure.getCause());
+        assertTrue(scope.isCancelled());
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void cancelInterruptsRunningTasks() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try (DocumentExecutors.DocumentScope scope = platform.open()) {
+            scope.executor().execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            scope.cancel();
+        }
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void taskForkedAfterCloseRunsOnTheCaller() {
+        DocumentExecutors.DocumentScope scope = platform.open();
+        scope.close();
+        Thread[] ran = new Thread[1];
+        scope.executor().execute(() -> ran[0] = Thread.currentThread());
+        assertSame(Thread.currentThread(), ran[0]);
+    }
+
+    @Test
+    void virtualModeNeedsAJava21Build() {
+        assumeFalse(VirtualThreads.isAvailable());
+        assertThrows(IllegalStateException.class, () -> new DocumentExecutors("virtual", Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void virtualModeRunsTasksInTheScope() {
+        assumeTrue(VirtualThreads.isAvailable());
+        DocumentExecutors virtual = new DocumentExecutors("virtual", Duration.ofSeconds(10));
+        assertEquals(DocumentExecutors.Mode.VIRTUAL, virtual.getMode());
+        AtomicInteger done = new AtomicInteger();
+        try (DocumentExecutors.DocumentScope scope = virtual.open()) {
+            for (int i = 0; i < 100; i++) {
+                scope.executor().execute(done::incrementAndGet);
+            }
+        }
+        assertEquals(100, done.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
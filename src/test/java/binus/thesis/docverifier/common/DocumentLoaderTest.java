@@ -0,0 +1,89 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.VerificationMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentLoaderTest {
+    private static final List<String> DOC_TYPES = List.of("BRD", "UAT", "PVT");
+
+    private final ExecutorService uploads = Executors.newFixedThreadPool(6);
+
+    @AfterEach
+    void tearDown() {
+        uploads.shutdownNow();
+    }
+
+    // in memory up to threshold bytes, streamed with a 64KB budget above it
+    private static DocumentLoader loader(long threshold) {
+        return new DocumentLoader(DataSize.ofBytes(threshold), DataSize.ofKilobytes(64), 0, 32,
+                new FontProgramCache(64, new SimpleMeterRegistry()));
+    }
+
+    private static DocumentUpload upload(String docType, byte[] pdf, InputStreamSource content) {
+        return new DocumentUpload(docType, docType, docType + ".pdf", pdf.length, content, VerificationMode.FULL,
+                false);
+    }
+
+    @Test
+    void everyUploadIsParsedFromItsOwnContent() throws Exception {
+        // memory, stream read into memory, streamed with a budget
+        for (long threshold : new long[]{Long.MAX_VALUE, 0}) {
+            DocumentLoader loader = loader(threshold);
+            List<Future<?>> loads = new ArrayList<>();
+            for (int run = 0; run < 4; run++) {
+                for (String docType : DOC_TYPES) {
+                    byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.builder().seed(run).build());
+                    String expected = text(pdf);
+                    InputStreamSource content = run % 2 == 0 ? new ByteArrayResource(pdf)
+                            : () -> new ByteArrayInputStream(pdf);
+                    // concurrent requests never see each other's document
+                    loads.add(uploads.submit(() -> {
+                        try (LoadedDocument loaded = loader.open(upload(docType, pdf, content))) {
+                            assertEquals(expected, new PDFTextStripper().getText(loaded.getDocument()), docType);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        }
+    }
+
+    @Test
+    void unreadableUploadFailsWithAnIOException() {
+        byte[] garbage = "not a pdf".getBytes();
+        assertThrows(IOException.class,
+                () -> loader(0).open(upload("BRD", garbage, () -> new ByteArrayInputStream(garbage))));
+        assertThrows(IOException.class,
+                () -> loader(Long.MAX_VALUE).open(upload("BRD", garbage, new ByteArrayResource(garbage))));
+    }
+
+    private static String text(byte[] pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            return new PDFTextStripper().getText(document);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.VerificationMode;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentViewsTest {
+    private final ExecutorService readers = Executors.newFixedThreadPool(6);
+
+    @AfterEach
+    void tearDown() {
+        readers.shutdownNow();
+    }
+
+    @Test
+    void readersNeverShareACopy() throws Exception {
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        Set<PDDocument> inUse = ConcurrentHashMap.newKeySet();
+        try (DocumentViews views = new DocumentViews(pdf, 2, () -> null)) {
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                int page = i % 3;
+                reads.add(readers.submit(() -> views.read(view -> {
+                    assertTrue(inUse.add(view), "view lent twice");
+                    try (InputStream content = view.getPage(page).getContents()) {
+                        Thread.sleep(10);
+                        return content.readAllBytes().length;
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        inUse.remove(view);
+                    }
+                })));
+            }
+            for (Future<Integer> read : reads) {
+                assertTrue(read.get() > 0);
+            }
+            // later readers waited for a copy instead of parsing a third one
+            assertEquals(2, views.size());
+            views.close();
+            assertEquals(0, views.size());
+        }
+    }
+
+    @Test
+    void atLeastOneViewIsNeeded() {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentViews(new byte[0], 0, () -> null));
+    }
+
+    @Test
+    void checksReadThroughViewsGiveTheSameResults() throws Exception {
+        TemplateRegistry registry = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper());
+        DocumentLoader loader = new DocumentLoader(DataSize.ofMegabytes(4), DataSize.ofMegabytes(2), 2, 32,
+                new FontProgramCache(64, new SimpleMeterRegistry()));
+        for (String docType : List.of("BRD", "UAT", "PVT")) {
+            CheckPlan plan = registry.find(docType);
+            byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.defaults());
+            Map<String, Boolean> shared;
+            try (PDDocument document = PDDocument.load(pdf)) {
+                shared = new TemplateChecker(plan, readers).process(document);
+            }
+            try (LoadedDocument loaded = loader.open(upload(docType, pdf, new ByteArrayResource(pdf)))) {
+                assertNotNull(loaded.getViews(), docType);
+                Map<String, Boolean> viewed = new TemplateChecker(plan, readers)
+                        .process(new VerificationContext(loaded.getDocument(), loaded.getViews()));
+                assertEquals(shared, viewed, docType);
+                assertTrue(loaded.getViews().size() > 0, docType);
+            }
+        }
+    }
+
+    @Test
+    void streamedUploadsHaveNoViews() throws IOException {
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        // views only for uploads parsed from memory, a streamed one would need its bytes on the heap
+        DocumentLoader loader = new DocumentLoader(DataSize.ofBytes(pdf.length - 1), DataSize.ofMegabytes(2), 2,
+                32, new FontProgramCache(64, new SimpleMeterRegistry()));
+        DocumentUpload streamed = upload("BRD", pdf, () -> new ByteArrayInputStream(pdf));
+        assertEquals(0, loader.viewsFor(streamed));
+        try (LoadedDocument loaded = loader.open(streamed)) {
+            assertNull(loaded.getViews());
+        }
+        assertEquals(2, loader.viewsFor(upload("BRD", pdf, new ByteArrayResource(pdf))));
+    }
+
+    private static DocumentUpload upload(String docType, byte[] pdf, InputStreamSource content) {
+        return new DocumentUpload(docType, docType, docType + ".pdf", pdf.length, content, VerificationMode.FULL,
+                false);
+    }
+}
@@ -0,0 +1,108 @@
+package binus.thesis.docverifier.common;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// One pass over the text lines must place headings where the 20pt window sliding 10pt at a time did
+class HeadingLocatorTest {
+    private static final List<String> KEYS = List.of("1. INTRODUCTION", "1.1 Purpose", "1.2 Scope",
+            "2. REQUIREMENTS", "3. APPENDIX");
+
+    @Test
+    void headingsAreWhereTheSlidingWindowFoundThem() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            // baselines on and between the 10pt grid, two headings closer than one window
+            PDPage page = page(document, Map.of(
+                    "1. INTRODUCTION", 60f,
+                    "1.1 Purpose", 83.5f,
+                    "1.2 Scope", 97f,
+                    "2. REQUIREMENTS", 412.3f));
+            float width = page.getMediaBox().getWidth();
+            Map<String, Double> located = HeadingLocator.locate(PageGlyphIndex.build(page), width, KEYS);
+            for (String key : KEYS) {
+                assertEquals(slidingWindow(page, key), located.get(key), key);
+            }
+            assertFalse(located.containsKey("3. APPENDIX"));
+        }
+    }
+
+    @Test
+    void headingAboveTheFirstWindowIsNotFound() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = page(document, Map.of("1. INTRODUCTION", 20f));
+            Map<String, Double> located = HeadingLocator.locate(PageGlyphIndex.build(page),
+                    page.getMediaBox().getWidth(), KEYS);
+            assertNull(located.get("1. INTRODUCTION"));
+            assertNull(slidingWindow(page, "1. INTRODUCTION"));
+        }
+    }
+
+    @Test
+    void windowHoldsTheBaseline() {
+        assertEquals(30.0, HeadingLocator.windowFor(30f));
+        assertEquals(30.0, HeadingLocator.windowFor(49.9f));
+        // a window is [y, y + 20), a baseline on its lower edge belongs to the next one
+        assertEquals(40.0, HeadingLocator.windowFor(50f));
+        assertEquals(400.0, HeadingLocator.windowFor(412.3f));
+    }
+
+    // the section area under a heading, one window lower and down to the next heading on the page
+    @Test
+    void sectionAreaRunsToTheNextHeading() {
+        assertEquals(new Rectangle2D.Double(HeadingLocator.START_X, 70, 595, 20),
+                HeadingLocator.sectionArea(50, null, 595));
+        assertEquals(new Rectangle2D.Double(HeadingLocator.START_X, 70, 595, 100),
+                HeadingLocator.sectionArea(50, 160.0, 595));
+        // headings within 30pt of each other keep a 30pt area
+        assertEquals(new Rectangle2D.Double(HeadingLocator.START_X, 80, 595, 30),
+                HeadingLocator.sectionArea(50, 70.0, 595));
+    }
+
+    // headings at the given baselines, measured from the top
+    private static PDPage page(PDDocument document, Map<String, Float> headings) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        float height = page.getMediaBox().getHeight();
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            for (Map.Entry<String, Float> heading : headings.entrySet()) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA_BOLD, 12);
+                content.newLineAtOffset(72, height - heading.getValue());
+                content.showText(heading.getKey());
+                content.endText();
+            }
+        }
+        return page;
+    }
+
+    // the scan getRectangledArea used to run, one text extraction per window
+    private static Double slidingWindow(PDPage page, String key) throws IOException {
+        float width = page.getMediaBox().getWidth();
+        for (double y = HeadingLocator.START_Y; y < page.getMediaBox().getHeight(); y += HeadingLocator.STEP) {
+            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+            stripper.setSortByPosition(true);
+            stripper.addRegion("window",
+                    new Rectangle2D.Double(HeadingLocator.START_X, y, width, HeadingLocator.WINDOW_HEIGHT));
+            stripper.extractRegions(page);
+            if (stripper.getTextForRegion("window").toUpperCase(Locale.ROOT).contains(key.toUpperCase(Locale.ROOT))) {
+                return y;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package binus.thesis.docverifier.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordMatcherTest {
+
+    @Test
+    void findsOverlappingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.of("he", "she", "his", "hers");
+        // SHE, HE and HERS all end inside "USHERS", through failure links
+        BitSet found = matcher.find("ushers");
+        assertEquals(BitSet.valueOf(new long[]{0b1011}), found);
+        assertTrue(matcher.containsAny("ushers"));
+        assertFalse(matcher.containsAny("abc"));
+    }
+
+    @Test
+    void keywordInsideAnotherIsFound() {
+        KeywordMatcher matcher = KeywordMatcher.of("TABLE OF CONTENT", "CONTENT");
+        assertTrue(matcher.containsAll("Table of Content"));
+        assertEquals(1, matcher.find("CONTENTS").cardinality());
+    }
+
+    @Test
+    void containsAllNeedsEveryKeyword() {
+        KeywordMatcher matcher = KeywordMatcher.of("INTRODUCTION", "SCOPE", "SUMMARY");
+        assertTrue(matcher.containsAll("1 Introduction\n2 Scope\n3 Summary"));
+        assertFalse(matcher.containsAll("1 Introduction\n3 Summary"));
+        // a keyword seen twice counts once
+        assertFalse(matcher.containsAll("Scope scope SCOPE"));
+    }
+
+    @Test
+    void matchingDoesNotDependOnTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            KeywordMatcher matcher = KeywordMatcher.of("introduction", "Limit");
+            assertTrue(matcher.containsAll("1 INTRODUCTION\n2 LIMIT"));
+            assertEquals("INTRODUCTION", matcher.getKeywords().get(0));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void rejectsEmptyKeywords() {
+        assertThrows(IllegalArgumentException.class, () -> KeywordMatcher.of("SCOPE", ""));
+    }
+}
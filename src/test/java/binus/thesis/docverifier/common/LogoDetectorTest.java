@@ -0,0 +1,109 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.corpus.Defect;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogoDetectorTest {
+    private static final LogoDetector CORPUS_LOGO = new LogoDetector(CorpusGenerator.logoImage());
+
+    @Test
+    void acceptsTheReferenceLogo() throws IOException {
+        assertTrue(coverMatches(CORPUS_LOGO, CorpusSpec.defaults()));
+    }
+
+    @Test
+    void rejectsADifferentImage() throws IOException {
+        assertFalse(coverMatches(new LogoDetector(gradient()), CorpusSpec.defaults()));
+    }
+
+    @Test
+    void rejectsACoverWithoutImage() throws IOException {
+        assertFalse(coverMatches(CORPUS_LOGO, CorpusSpec.builder().defects(Set.of(Defect.NO_LOGO)).build()));
+    }
+
+    @Test
+    void defaultReferenceIsShipped() throws IOException {
+        LogoDetector shipped = new LogoDetector(LogoDetector.DEFAULT_REFERENCE, new DefaultResourceLoader());
+        assertTrue(shipped.hasReference());
+        assertTrue(coverMatches(shipped, CorpusSpec.defaults()));
+    }
+
+    @Test
+    void withoutReferenceAnImageInTheAreaPasses() throws IOException {
+        LogoDetector presence = new LogoDetector("", new DefaultResourceLoader());
+        assertFalse(presence.hasReference());
+        assertTrue(coverMatches(presence, CorpusSpec.defaults()));
+        assertFalse(coverMatches(presence, CorpusSpec.builder().defects(Set.of(Defect.NO_LOGO)).build()));
+    }
+
+    @Test
+    void areaIsInRotatedCropBoxCoordinates() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage cover = new PDPage(new PDRectangle(300, 400));
+            cover.setCropBox(new PDRectangle(50, 50, 200, 300));
+            cover.setRotation(90);
+            document.addPage(cover);
+            PDImageXObject logo = LosslessFactory.createFromImage(document, CorpusGenerator.logoImage());
+            try (PDPageContentStream content = new PDPageContentStream(document, cover)) {
+                content.drawImage(logo, 100, 250, 40, 40);
+            }
+            // 50..90 from the crop box's left and 200..240 from its bottom, turned a quarter:
+            // x 200..240 and y 50..90 on the displayed page
+            assertTrue(CORPUS_LOGO.matches(cover, new Rectangle2D.Double(190, 40, 60, 60), 10));
+            assertFalse(CORPUS_LOGO.matches(cover, new Rectangle2D.Double(100, 10, 40, 40), 10));
+        }
+    }
+
+    @Test
+    void configuredReferenceMustExist() {
+        assertThrows(IllegalStateException.class,
+                () -> new LogoDetector("classpath:logo/missing.png", new DefaultResourceLoader()));
+    }
+
+    private static boolean coverMatches(LogoDetector detector, CorpusSpec spec) throws IOException {
+        CheckPlan plan = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper()).find("BRD");
+        assertTrue(plan.getCheckIds().contains(CheckPlan.LOGO));
+        try (PDDocument document = PDDocument.load(CorpusGenerator.generate("BRD", spec))) {
+            VerificationContext context = new VerificationContext(document);
+            CheckPlan.LogoRule rule = plan.getLogoRule();
+            return detector.matches(context.page(1), rule.getArea().area(context.pageHeight(1)), rule.getMaxDistance());
+        }
+    }
+
+    // brighter on the left on every row, the opposite of a logo on white paper
+    private static BufferedImage gradient() {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, 128, 0, Color.BLACK));
+            graphics.fillRect(0, 0, 128, 128);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
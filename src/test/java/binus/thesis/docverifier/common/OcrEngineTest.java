@@ -0,0 +1,92 @@
+package binus.thesis.docverifier.common;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Regions are rendered in the coordinates text regions use: rotated crop box, top left origin
+class OcrEngineTest {
+    // 72 dpi, one pixel per point
+    private final OcrEngine engine = new OcrEngine(true, "", "eng", 72, 1, 1, Duration.ofSeconds(5));
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void regionOfARotatedPage() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(200, 300));
+            page.setRotation(90);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.addRect(20, 250, 20, 20);
+                content.fill();
+            }
+            // turned a quarter: displayed 300 wide and 200 high, the square at x 250..270, y 20..40
+            BufferedImage square = engine.render(document, 1, new Rectangle2D.Double(245, 15, 30, 30));
+            assertNotNull(square);
+            assertEquals(30, square.getWidth());
+            assertEquals(30, square.getHeight());
+            assertEquals(400, darkPixels(square), 40);
+            assertEquals(0, darkPixels(engine.render(document, 1, new Rectangle2D.Double(100, 100, 30, 30))));
+            assertNull(engine.render(document, 1, new Rectangle2D.Double(310, 0, 30, 30)));
+        }
+    }
+
+    @Test
+    void regionOfAnOffsetCropBox() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(300, 300));
+            page.setCropBox(new PDRectangle(100, 100, 100, 100));
+            document.addPage(page);
+            BufferedImage black = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+            PDImageXObject image = LosslessFactory.createFromImage(document, black);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                // inside the crop box, 20..40 from its left and 20..40 from its top
+                content.drawImage(image, 120, 160, 20, 20);
+                // outside the region asked below, never drawn
+                content.drawImage(image, 170, 110, 20, 20);
+            }
+            BufferedImage region = engine.render(document, 1, new Rectangle2D.Double(15, 15, 30, 30));
+            assertEquals(400, darkPixels(region), 40);
+            assertEquals(0, darkPixels(engine.render(document, 1, new Rectangle2D.Double(45, 15, 20, 20))));
+        }
+    }
+
+    @Test
+    void regionOutsideThePageIsNotRendered() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(new PDRectangle(100, 100)));
+            assertNull(engine.render(document, 1, new Rectangle2D.Double(120, 0, 50, 50)));
+            assertEquals("", engine.recognize(null).join());
+        }
+    }
+
+    private static int darkPixels(BufferedImage image) {
+        int dark = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xff) < 128) {
+                    dark++;
+                }
+            }
+        }
+        return dark;
+    }
+}
@@ -0,0 +1,144 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.apache.pdfbox.util.Matrix;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The glyph index replaces PDFTextStripperByArea for region reads, both must see the same text
+class PageGlyphIndexTest {
+
+    @Test
+    void corpusPagesMatchTheTextStripper() throws IOException {
+        for (String docType : List.of("BRD", "UAT", "PVT")) {
+            byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.builder().imagesPerSection(1).build());
+            try (PDDocument document = PDDocument.load(pdf)) {
+                for (int i = 0; i < document.getNumberOfPages(); i++) {
+                    assertParity(docType + " page " + (i + 1), document.getPage(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rotatedPageMatchesTheTextStripper() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            page.setRotation(90);
+            document.addPage(page);
+            // drawn a quarter turn counter-clockwise so the text reads upright once the page is turned
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                String[] lines = {"1. INTRODUCTION", "Landscape table of the test scenarios", "Scenario  Expected  Actual"};
+                for (int i = 0; i < lines.length; i++) {
+                    content.beginText();
+                    content.setFont(i == 0 ? PDType1Font.HELVETICA_BOLD : PDType1Font.HELVETICA, 12);
+                    content.setTextMatrix(Matrix.getRotateInstance(Math.PI / 2, 100 + 20 * i, 72));
+                    content.showText(lines[i]);
+                    content.endText();
+                }
+            }
+            assertFalse(normalized(PageGlyphIndex.build(page).textIn(fullPage(page))).isEmpty());
+            assertParity("rotated page", page);
+        }
+    }
+
+    @Test
+    void regionsOfOnePageAreAnsweredFromOneIndex() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            float height = page.getMediaBox().getHeight();
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                String[] lines = {"BUSINESS REQUIREMENT DEFINITION", "Project Alpha", "Version 1.0"};
+                for (int i = 0; i < lines.length; i++) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    // baselines 100, 200 and 300 from the top
+                    content.newLineAtOffset(72, height - 100 * (i + 1));
+                    content.showText(lines[i]);
+                    content.endText();
+                }
+            }
+            PageGlyphIndex index = PageGlyphIndex.build(page);
+            assertTrue(index.hasText());
+            // every region is a lookup in the same index, each sees only the glyphs inside it
+            assertEquals("BUSINESS REQUIREMENT DEFINITION",
+                    normalized(index.textIn(new Rectangle2D.Double(0, 80, 595, 40))));
+            assertEquals("Project Alpha", normalized(index.textIn(new Rectangle2D.Double(0, 180, 595, 40))));
+            assertEquals("Project Alpha\nVersion 1.0",
+                    normalized(index.textIn(new Rectangle2D.Double(0, 150, 595, 200))));
+            assertEquals("", index.textIn(new Rectangle2D.Double(0, 400, 595, 100)));
+            List<PageGlyphIndex.TextLine> lines = index.linesIn(new Rectangle2D.Double(0, 0, 595, 842));
+            assertEquals(List.of("BUSINESS REQUIREMENT DEFINITION", "Project Alpha", "Version 1.0"),
+                    lines.stream().map(line -> normalized(line.getText())).toList());
+            assertEquals(200, lines.get(1).getBottom(), 0.5);
+        }
+    }
+
+    @Test
+    void pageWithoutTextHasAnEmptyIndex() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            PageGlyphIndex index = PageGlyphIndex.build(page);
+            assertFalse(index.hasText());
+            assertEquals("", index.textIn(fullPage(page)));
+            assertTrue(index.linesIn(fullPage(page)).isEmpty());
+        }
+    }
+
+    // whole page, upper and lower half and a band across the middle, in rotated page coordinates
+    private static void assertParity(String name, PDPage page) throws IOException {
+        Rectangle2D.Double full = fullPage(page);
+        double width = full.getWidth();
+        double height = full.getHeight();
+        List<Rectangle2D> regions = List.of(full,
+                new Rectangle2D.Double(0, 0, width, height / 2),
+                new Rectangle2D.Double(0, height / 2, width, height / 2),
+                new Rectangle2D.Double(width / 4, height / 3, width / 2, height / 3));
+        PageGlyphIndex index = PageGlyphIndex.build(page);
+        for (Rectangle2D region : regions) {
+            assertEquals(normalized(stripped(page, region)), normalized(index.textIn(region)),
+                    name + " region " + region);
+        }
+    }
+
+    private static Rectangle2D.Double fullPage(PDPage page) {
+        PDRectangle cropBox = page.getCropBox();
+        boolean turned = Math.floorMod(page.getRotation(), 180) == 90;
+        return new Rectangle2D.Double(0, 0, turned ? cropBox.getHeight() : cropBox.getWidth(),
+                turned ? cropBox.getWidth() : cropBox.getHeight());
+    }
+
+    private static String stripped(PDPage page, Rectangle2D region) throws IOException {
+        PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+        stripper.setSortByPosition(true);
+        stripper.addRegion("region", region);
+        stripper.extractRegions(page);
+        return stripper.getTextForRegion("region");
+    }
+
+    // line breaks and word gaps are compared, not the exact run of spaces
+    private static String normalized(String text) {
+        return Arrays.stream(text.split("\\R"))
+                .map(line -> line.trim().replaceAll("\\s+", " "))
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,121 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionTextCacheTest {
+    private final RegionTextCache cache = new RegionTextCache(1_000, new SimpleMeterRegistry());
+
+    @Test
+    void pagesDrawnAlikeShareAKey() throws IOException {
+        try (PDDocument first = document(PDType1Font.HELVETICA, "BUSINESS REQUIREMENT DEFINITION", 0);
+             PDDocument same = document(PDType1Font.HELVETICA, "BUSINESS REQUIREMENT DEFINITION", 0);
+             PDDocument otherText = document(PDType1Font.HELVETICA, "USER ACCEPTANCE TEST", 0);
+             PDDocument otherFont = document(PDType1Font.COURIER, "BUSINESS REQUIREMENT DEFINITION", 0);
+             PDDocument turned = document(PDType1Font.HELVETICA, "BUSINESS REQUIREMENT DEFINITION", 90)) {
+            String key = key(first);
+            // another upload of the same page, parsed on its own
+            assertEquals(key, key(same));
+            assertNotEquals(key, key(otherText));
+            // the same content stream shows other text through another font
+            assertNotEquals(key, key(otherFont));
+            assertNotEquals(key, key(turned));
+        }
+    }
+
+    @Test
+    void repeatedUploadReadsItsRegionsFromTheCache() throws IOException {
+        CheckPlan plan = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper()).find("BRD");
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        Map<CheckObserver.RegionSource, Integer> firstReads = new EnumMap<>(CheckObserver.RegionSource.class);
+        Map<String, Boolean> first = check(plan, pdf, firstReads);
+        Map<CheckObserver.RegionSource, Integer> secondReads = new EnumMap<>(CheckObserver.RegionSource.class);
+        Map<String, Boolean> second = check(plan, pdf, secondReads);
+
+        assertEquals(first, second);
+        assertTrue(firstReads.getOrDefault(CheckObserver.RegionSource.TEXT, 0) > 0);
+        assertNull(firstReads.get(CheckObserver.RegionSource.CACHE));
+        // the second request extracts no region at all
+        assertNull(secondReads.get(CheckObserver.RegionSource.TEXT));
+        assertEquals(firstReads.get(CheckObserver.RegionSource.TEXT), secondReads.get(CheckObserver.RegionSource.CACHE));
+    }
+
+    @Test
+    void leastRecentlyUsedRegionIsEvicted() {
+        RegionTextCache small = new RegionTextCache(2, new SimpleMeterRegistry());
+        small.put("a", "A");
+        small.put("b", "B");
+        small.get("a");
+        small.put("c", "C");
+        assertEquals(2, small.size());
+        assertEquals("A", small.get("a"));
+        assertNull(small.get("b"));
+
+        RegionTextCache off = new RegionTextCache(0, new SimpleMeterRegistry());
+        off.put("a", "A");
+        assertEquals(0, off.size());
+    }
+
+    @Test
+    void regionKeyIsThePageKeyAndTheRectangle() {
+        assertEquals(cache.keyOf("page", new Rectangle2D.Double(1, 2, 3, 4)),
+                cache.keyOf("page", new Rectangle2D.Double(1, 2, 3, 4)));
+        assertNotEquals(cache.keyOf("page", new Rectangle2D.Double(1, 2, 3, 4)),
+                cache.keyOf("page", new Rectangle2D.Double(1, 2, 3, 5)));
+    }
+
+    private Map<String, Boolean> check(CheckPlan plan, byte[] pdf, Map<CheckObserver.RegionSource, Integer> reads)
+            throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            TemplateChecker checker = new TemplateChecker(plan, Runnable::run, null, cache, null, false);
+            checker.observe(new CheckObserver() {
+                @Override
+                public void regionRead(int page, RegionSource source, long nanos) {
+                    reads.merge(source, 1, Integer::sum);
+                }
+            });
+            return checker.process(document);
+        }
+    }
+
+    private String key(PDDocument document) throws IOException {
+        return cache.pageKey(document.getPage(0), new HashMap<>());
+    }
+
+    private static PDDocument document(PDFont font, String title, int rotation) throws IOException {
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage(PDRectangle.A4);
+        page.setRotation(rotation);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(font, 14);
+            content.newLineAtOffset(72, 700);
+            content.showText(title);
+            content.endText();
+        }
+        return document;
+    }
+}
@@ -0,0 +1,57 @@
+package binus.thesis.docverifier.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableOfContentTest {
+    private static final TableOfContent TOC = new TableOfContent(4, true, List.of(
+            TableOfContent.entry("1 INTRODUCTION", 5),
+            TableOfContent.entry("2 SCOPE EVALUATION", 6),
+            TableOfContent.entry("2.1 IN SCOPE", 6),
+            TableOfContent.entry("3 PLAN TESTING", 8),
+            TableOfContent.entry("4 SUMMARY OF TESTING", 9)));
+
+    @Test
+    void extractsTitlesWithoutTheirNumbers() {
+        // the page number of an entry and the number of the next one run together
+        String toc = "1 Introduction ........ 5\n2 Scope Evaluation ........ 6\n3 Plan Testing ........ 8";
+        assertEquals(List.of("INTRODUCTION", "SCOPE EVALUATION", "PLAN TESTING"), Helper.extractSectionTitles(toc));
+    }
+
+    @Test
+    void extractedTitlesDoNotDependOnTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals(List.of("INTRODUCTION", "LIMITATION"),
+                    Helper.extractSectionTitles("1 Introduction\n2 Limitation\n"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void entryNumberIsTheLeadingOutlineNumber() {
+        assertEquals("2.1", TableOfContent.entry("2.1 IN SCOPE", 6).getNumber());
+        assertEquals("1", TableOfContent.entry("1. Introduction", 5).getNumber());
+        assertNull(TableOfContent.entry("APPENDIX", 12).getNumber());
+    }
+
+    @Test
+    void spanRunsFromStartUpToEndKey() {
+        assertEquals(List.of("2 SCOPE EVALUATION", "2.1 IN SCOPE"), titles(TOC.span("SCOPE EVALUATION", "PLAN TESTING")));
+        // a blank end key runs to the end of the table
+        assertEquals(List.of("3 PLAN TESTING", "4 SUMMARY OF TESTING"), titles(TOC.span("PLAN TESTING", "")));
+        assertTrue(TOC.span("LESSON LEARNED", "").isEmpty());
+    }
+
+    private static List<String> titles(List<TableOfContent.Entry> entries) {
+        return entries.stream().map(TableOfContent.Entry::getTitle).toList();
+    }
+}
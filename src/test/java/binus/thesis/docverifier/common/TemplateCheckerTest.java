@@ -0,0 +1,192 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.corpus.Defect;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateCheckerTest {
+    private static final List<String> DOC_TYPES = List.of("BRD", "UAT", "PVT");
+
+    private static TemplateRegistry registry;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        registry = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fullModeSettlesEveryCheck() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.defaults());
+            // results are recorded by completion callbacks, repeated runs give a late one the chance to be lost
+            for (int run = 0; run < 20; run++) {
+                try (PDDocument document = PDDocument.load(pdf)) {
+                    Map<String, Boolean> results = new TemplateChecker(plan, executor).process(document);
+                    assertEquals(Set.copyOf(plan.getCheckIds()), results.keySet(), docType + " run " + run);
+                }
+            }
+        }
+    }
+
+    @Test
+    void tableOfContentIsReadOnceForAllSections() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.defaults());
+            AtomicInteger collected = new AtomicInteger();
+            try (PDDocument document = PDDocument.load(pdf)) {
+                TemplateChecker checker = new TemplateChecker(plan, executor) {
+                    @Override
+                    protected CompletableFuture<TableOfContent> collectContent(VerificationContext context,
+                                                                              Integer tocPage) {
+                        collected.incrementAndGet();
+                        return super.collectContent(context, tocPage);
+                    }
+                };
+                Map<String, Boolean> results = checker.process(document);
+                // every section check reads its span from the one model
+                plan.getSectionRules().forEach(rule -> assertEquals(true, results.get(rule.getId()), docType));
+                assertEquals(1, collected.get(), docType);
+            }
+        }
+    }
+
+    @Test
+    void headingsOfASectionPageAreLocatedOnce() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            // several headings per page, their section checks race for the same layout
+            byte[] pdf = CorpusGenerator.generate(docType, CorpusSpec.builder().subsections(4).build());
+            Map<Integer, Integer> lookups = new ConcurrentHashMap<>();
+            Set<Integer> entryPages = ConcurrentHashMap.newKeySet();
+            try (PDDocument document = PDDocument.load(pdf)) {
+                TemplateChecker checker = new TemplateChecker(plan, executor) {
+                    @Override
+                    protected CompletableFuture<TableOfContent> collectContent(VerificationContext context,
+                                                                              Integer tocPage) {
+                        return super.collectContent(context, tocPage).thenApply(toc -> {
+                            toc.getEntries().forEach(entry -> entryPages.add(entry.getPage()));
+                            return toc;
+                        });
+                    }
+                };
+                checker.observe(new CheckObserver() {
+                    @Override
+                    public void headingLookup(int page, long nanos) {
+                        lookups.merge(page, 1, Integer::sum);
+                    }
+                });
+                Map<String, Boolean> results = checker.process(document);
+                plan.getSectionRules().forEach(rule -> assertEquals(true, results.get(rule.getId()), docType));
+                assertFalse(lookups.isEmpty(), docType);
+                assertTrue(entryPages.containsAll(lookups.keySet()), docType);
+                lookups.forEach((page, count) -> assertEquals(1, count, docType + " page " + page));
+            }
+        }
+    }
+
+    @Test
+    void failFastListsTheRestAsUnsettled() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            CorpusSpec spec = CorpusSpec.builder().defects(Set.of(Defect.NO_COVER_TITLE)).build();
+            byte[] pdf = CorpusGenerator.generate(docType, spec);
+            try (PDDocument document = PDDocument.load(pdf)) {
+                // on the calling thread the cover check settles first
+                Map<String, Boolean> results = new TemplateChecker(plan, Runnable::run, null, null, null, true)
+                        .process(document);
+                assertEquals(Map.of(CheckPlan.COVER, false), results, docType);
+                List<String> skipped = plan.unsettled(results.keySet());
+                assertFalse(skipped.contains(CheckPlan.COVER), docType);
+                Set<String> all = new HashSet<>(skipped);
+                all.addAll(results.keySet());
+                assertEquals(Set.copyOf(plan.getCheckIds()), all, docType);
+                assertEquals(plan.getCheckIds().size() - 1, skipped.size(), docType);
+            }
+        }
+    }
+
+    @Test
+    void failFastNeverRunsTheStagesAfterTheFailure() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            byte[] pdf = CorpusGenerator.generate(docType,
+                    CorpusSpec.builder().defects(Set.of(Defect.NO_COVER_TITLE)).build());
+            // one checker thread, held until the first stages are queued: the page searches,
+            // the cover and the logo run first, every stage depending on them is queued behind
+            LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+            ThreadPoolExecutor single = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue);
+            int firstStages = plan.getSearches().size() + 1 + (plan.getLogoRule() != null ? 1 : 0);
+            single.execute(() -> {
+                while (queue.size() < firstStages) {
+                    Thread.onSpinWait();
+                }
+            });
+            Map<String, Integer> started = new ConcurrentHashMap<>();
+            try (PDDocument document = PDDocument.load(pdf)) {
+                TemplateChecker checker = new TemplateChecker(plan, single, null, null, null, true);
+                checker.observe(new CheckObserver() {
+                    @Override
+                    public void stageStarted(String checkId) {
+                        started.merge(checkId, 1, Integer::sum);
+                    }
+                });
+                Map<String, Boolean> results = checker.process(document);
+
+                assertEquals(false, results.get(CheckPlan.COVER), docType);
+                List<String> skipped = plan.unsettled(results.keySet());
+                assertTrue(skipped.contains(CheckPlan.APPROVAL), docType);
+                assertTrue(skipped.contains(CheckPlan.TABLE_OF_CONTENT), docType);
+                plan.getSectionRules().forEach(rule -> assertTrue(skipped.contains(rule.getId()), docType));
+                // only the stages queued before the failure ran: approval cells, the table of content
+                // and the sections were refused
+                Map<String, Integer> expected = new HashMap<>();
+                for (int i = 0; i < plan.getSearches().size(); i++) {
+                    expected.merge(i == plan.getApprovalSearch() ? CheckPlan.APPROVAL : CheckPlan.TABLE_OF_CONTENT,
+                            1, Integer::sum);
+                }
+                expected.put(CheckPlan.COVER, 1);
+                if (plan.getLogoRule() != null) {
+                    expected.put(CheckPlan.LOGO, 1);
+                }
+                assertEquals(expected, started, docType);
+            } finally {
+                single.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.util.Matrix;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextResourceCacheTest {
+    private static final int DOCUMENTS = 6;
+
+    @Test
+    void concurrentDocumentsNeverShareAParsedFont() throws Exception {
+        FontProgramCache shared = new FontProgramCache(64, new SimpleMeterRegistry());
+        List<byte[]> pdfs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.builder().seed(i).build());
+            pdfs.add(pdf);
+            try (PDDocument document = PDDocument.load(pdf)) {
+                expected.add(text(document));
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(DOCUMENTS);
+        try {
+            // the second round borrows the fonts the first one gave back
+            for (int round = 0; round < 2; round++) {
+                CyclicBarrier allOpen = new CyclicBarrier(DOCUMENTS);
+                List<Future<Set<PDFont>>> held = new ArrayList<>();
+                for (int i = 0; i < DOCUMENTS; i++) {
+                    byte[] pdf = pdfs.get(i);
+                    String text = expected.get(i);
+                    held.add(pool.submit(() -> {
+                        TextResourceCache fonts = new TextResourceCache(32, shared);
+                        try (PDDocument document = PDDocument.load(pdf)) {
+                            document.setResourceCache(fonts);
+                            assertEquals(text, text(document));
+                            Set<PDFont> own = Collections.newSetFromMap(new IdentityHashMap<>());
+                            own.addAll(fonts.lentFonts());
+                            // every document holds its fonts at the same time
+                            allOpen.await(30, TimeUnit.SECONDS);
+                            return own;
+                        } finally {
+                            fonts.release();
+                        }
+                    }));
+                }
+                Set<PDFont> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Future<Set<PDFont>> fonts : held) {
+                    Set<PDFont> own = fonts.get(60, TimeUnit.SECONDS);
+                    assertFalse(own.isEmpty());
+                    for (PDFont font : own) {
+                        assertTrue(seen.add(font), "font " + font.getName() + " lent to two open documents");
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(shared.hitRatio() > 0, "no font was reused");
+    }
+
+    @Test
+    void idleFontsAreBounded() throws IOException {
+        FontProgramCache shared = new FontProgramCache(2, new SimpleMeterRegistry());
+        byte[] pdf = CorpusGenerator.generate("UAT", CorpusSpec.defaults());
+        List<TextResourceCache> open = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TextResourceCache fonts = new TextResourceCache(32, shared);
+            try (PDDocument document = PDDocument.load(pdf)) {
+                document.setResourceCache(fonts);
+                text(document);
+            }
+            open.add(fonts);
+        }
+        open.forEach(TextResourceCache::release);
+        assertEquals(2, shared.size());
+    }
+
+    @Test
+    void indexingTextNeverLoadsAnImage() throws IOException {
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.builder().imagesPerSection(2).build());
+        AtomicInteger lookups = new AtomicInteger();
+        // every XObject resolved by the text pass would go through the cache
+        TextResourceCache resources = new TextResourceCache(32) {
+            @Override
+            public PDXObject getXObject(COSObject indirect) {
+                lookups.incrementAndGet();
+                return null;
+            }
+        };
+        try (PDDocument document = PDDocument.load(pdf)) {
+            document.setResourceCache(resources);
+            assertFalse(text(document).isBlank());
+        }
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void textInsideAFormIsStillIndexed() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.setResourceCache(new TextResourceCache(32));
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            PDFormXObject form = new PDFormXObject(document);
+            form.setBBox(new PDRectangle(0, 0, 400, 40));
+            form.setResources(new PDResources());
+            try (PDPageContentStream content = new PDPageContentStream(document, form,
+                    form.getStream().createOutputStream())) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(10, 10);
+                content.showText("APPROVAL SHEET");
+                content.endText();
+            }
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.saveGraphicsState();
+                content.transform(Matrix.getTranslateInstance(72, 700));
+                content.drawForm(form);
+                content.restoreGraphicsState();
+            }
+            assertTrue(text(document).contains("APPROVAL SHEET"));
+        }
+    }
+
+    @Test
+    void onlyFontsAreHeld() {
+        TextResourceCache resources = new TextResourceCache(32);
+        COSObject indirect = new COSObject(new COSDictionary());
+        resources.put(indirect, PDDeviceRGB.INSTANCE);
+        resources.put(indirect, new PDExtendedGraphicsState());
+        assertNull(resources.getColorSpace(indirect));
+        assertNull(resources.getExtGState(indirect));
+        assertNull(resources.getXObject(indirect));
+    }
+
+    private static String text(PDDocument document) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (PDPage page : document.getPages()) {
+            PDRectangle box = page.getCropBox();
+            text.append(PageGlyphIndex.build(page).textIn(new Rectangle2D.Double(0, 0, box.getWidth(),
+                    box.getHeight()))).append('\f');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package binus.thesis.docverifier.common;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VerificationContextTest {
+
+    @Test
+    void pageSizeIsTheCropBoxAsDisplayed() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage upright = new PDPage(PDRectangle.A4);
+            upright.setCropBox(new PDRectangle(20, 30, 500, 700));
+            document.addPage(upright);
+            PDPage turned = new PDPage(PDRectangle.A4);
+            turned.setCropBox(new PDRectangle(20, 30, 500, 700));
+            turned.setRotation(270);
+            document.addPage(turned);
+
+            VerificationContext context = new VerificationContext(document);
+            assertEquals(500, context.pageWidth(1));
+            assertEquals(700, context.pageHeight(1));
+            assertEquals(700, context.pageWidth(2));
+            assertEquals(500, context.pageHeight(2));
+        }
+    }
+
+    @Test
+    void displayTransformMatchesTheDisplayedPage() {
+        // crop box 100 x 200 at (20, 30), page point 10 right and 40 up from its lower left corner
+        Point2D point = new Point2D.Double(30, 70);
+        assertEquals(new Point2D.Double(10, 160), displayed(0, point));
+        assertEquals(new Point2D.Double(40, 10), displayed(90, point));
+        assertEquals(new Point2D.Double(90, 40), displayed(180, point));
+        assertEquals(new Point2D.Double(160, 90), displayed(270, point));
+    }
+
+    private static Point2D displayed(int rotation, Point2D point) {
+        PDPage page = new PDPage(PDRectangle.A4);
+        page.setCropBox(new PDRectangle(20, 30, 100, 200));
+        page.setRotation(rotation);
+        Point2D shown = VerificationContext.displayTransform(page).transform(point, null);
+        // rounded, the quarter turns leave 1e-14 behind
+        return new Point2D.Double(Math.round(shown.getX()), Math.round(shown.getY()));
+    }
+}
@@ -0,0 +1,43 @@
+package binus.thesis.docverifier.common;
+
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VerificationMetricsTest {
+
+    @Test
+    void documentTypesWithoutTemplateShareOneTag() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerificationMetrics metrics = new VerificationMetrics(registry);
+        metrics.verificationCompleted(null, "failed", 1_000);
+        metrics.verificationCompleted(null, "failed", 1_000);
+        assertEquals(2, registry.get("docverifier.verification").tag("docType", "unknown")
+                .tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    void planMetersAreBuiltOnce() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerificationMetrics metrics = new VerificationMetrics(registry);
+        CheckPlan plan = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper()).find("BRD");
+        CheckObserver observer = metrics.observer(plan);
+        int meters = registry.getMeters().size();
+        for (int i = 0; i < 3; i++) {
+            metrics.observer(plan).regionRead(1, CheckObserver.RegionSource.TEXT, 1_000);
+            observer.checkCompleted(CheckPlan.COVER, false, 1_000);
+            metrics.verificationCompleted(plan, "verified", 1_000);
+        }
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(3, registry.get("docverifier.check").tag("docType", "BRD").tag("check", CheckPlan.COVER)
+                .tag("result", "fail").timer().count());
+        assertEquals(3, registry.get("docverifier.region.read").tag("docType", "BRD").tag("source", "text")
+                .timer().count());
+    }
+}
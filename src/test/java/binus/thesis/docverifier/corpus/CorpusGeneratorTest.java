@@ -0,0 +1,119 @@
+package binus.thesis.docverifier.corpus;
+
+import binus.thesis.docverifier.common.LogoDetector;
+import binus.thesis.docverifier.common.TemplateChecker;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.DocumentTemplate;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Generated documents checked against the templates they were generated from:
+// a clean document passes every check, a defect fails exactly the checks it names
+class CorpusGeneratorTest {
+    private static final List<String> DOC_TYPES = List.of("BRD", "UAT", "PVT");
+
+    private static LogoDetector logoDetector;
+    private static TemplateRegistry registry;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        // the shipped default reference, the logo generated documents carry
+        logoDetector = new LogoDetector(LogoDetector.DEFAULT_REFERENCE, new DefaultResourceLoader());
+        registry = new TemplateRegistry("classpath:doc-templates/", new ObjectMapper());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void cleanDocumentsPassEveryCheck() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            assertTrue(plan.getCheckIds().contains(CheckPlan.LOGO), docType);
+            assertEquals(Set.of(), failedChecks(plan, CorpusSpec.defaults()), docType);
+        }
+    }
+
+    @Test
+    void everyDefectFailsItsNamedChecks() throws IOException {
+        for (String docType : DOC_TYPES) {
+            CheckPlan plan = registry.find(docType);
+            // the section hit by MISSING_SECTION and EMPTY_SECTION is one the template verifies
+            int defectSection = firstVerifiedSection(CorpusGenerator.template(docType));
+            for (Defect defect : Defect.values()) {
+                CorpusSpec spec = CorpusSpec.builder().defects(Set.of(defect)).defectSection(defectSection).build();
+                assertEquals(expectedFailures(plan, defect, defectSection, docType), failedChecks(plan, spec),
+                        docType + " " + defect);
+            }
+        }
+    }
+
+    private static Set<String> expectedFailures(CheckPlan plan, Defect defect, int defectSection, String docType)
+            throws IOException {
+        Set<String> expected = new TreeSet<>();
+        switch (defect) {
+            case NO_COVER_TITLE -> expected.add(CheckPlan.COVER);
+            case NO_LOGO -> expected.addAll(List.of(CheckPlan.COVER, CheckPlan.LOGO));
+            case UNSIGNED_APPROVAL -> expected.add(CheckPlan.APPROVAL);
+            case MISSING_SECTION -> {
+                expected.add(CheckPlan.TABLE_OF_CONTENT);
+                plan.getSectionRules().stream().filter(CheckPlan.SectionRule::isRequireValidToc)
+                        .forEach(rule -> expected.add(rule.getId()));
+            }
+            case EMPTY_SECTION -> {
+                String title = CorpusGenerator.template(docType).getSections().get(defectSection).getTitle()
+                        .trim().toUpperCase(Locale.ROOT);
+                plan.getSectionRules().stream().filter(rule -> rule.getStartKey().equals(title))
+                        .forEach(rule -> expected.add(rule.getId()));
+            }
+        }
+        return expected;
+    }
+
+    private static Set<String> failedChecks(CheckPlan plan, CorpusSpec spec) throws IOException {
+        try (PDDocument document = PDDocument.load(CorpusGenerator.generate(plan.getDocType(), spec))) {
+            TemplateChecker checker = new TemplateChecker(plan, executor, null, null, logoDetector, false);
+            Map<String, Boolean> results = checker.process(document);
+            assertEquals(Set.of(), checker.errors(), plan.getDocType());
+            assertEquals(Set.copyOf(plan.getCheckIds()), results.keySet(), plan.getDocType());
+            Set<String> failed = new TreeSet<>();
+            results.forEach((id, valid) -> {
+                if (!valid) {
+                    failed.add(id);
+                }
+            });
+            return failed;
+        }
+    }
+
+    private static int firstVerifiedSection(DocumentTemplate template) {
+        List<DocumentTemplate.Section> sections = template.getSections();
+        for (int i = 1; i < sections.size(); i++) {
+            if (sections.get(i).isVerify()) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,138 @@
+package binus.thesis.docverifier.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService waiters = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        waiters.shutdownNow();
+    }
+
+    // heap budget in bytes, one heap byte per upload byte and per page so estimates are the upload sizes
+    private AdmissionControl admission(int maxInFlight, int maxQueued, long heapBudget, Duration queueTimeout) {
+        return new AdmissionControl(maxInFlight, maxQueued, DataSize.ofBytes(heapBudget), 1, DataSize.ofBytes(1),
+                queueTimeout, Duration.ofSeconds(5), registry);
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        AdmissionControl admission = admission(1, 0, 1_000, Duration.ofSeconds(5));
+        try (AdmissionControl.Permit ignored = admission.admit(10)) {
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> admission.admit(10));
+            assertEquals("admission queue is full", e.getMessage());
+            assertEquals(5, e.getRetryAfterSeconds());
+        }
+        assertEquals(1, registry.get("docverifier.admission.rejections").counter().count());
+        assertEquals(0, admission.getInFlight());
+    }
+
+    @Test
+    void waiterTimesOutAndLeavesTheQueue() {
+        AdmissionControl admission = admission(1, 4, 1_000, Duration.ofMillis(100));
+        try (AdmissionControl.Permit ignored = admission.admit(10)) {
+            long start = System.nanoTime();
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> admission.admit(10));
+            assertEquals("timed out waiting for admission", e.getMessage());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertEquals(0, admission.getQueued());
+        }
+        // the timed out waiter holds nothing
+        assertEquals(0, admission.getReserved());
+    }
+
+    @Test
+    void releaseAdmitsTheNextWaiter() throws Exception {
+        AdmissionControl admission = admission(1, 4, 1_000, Duration.ofSeconds(10));
+        AdmissionControl.Permit first = admission.admit(10);
+        CompletableFuture<AdmissionControl.Permit> second =
+                CompletableFuture.supplyAsync(() -> admission.admit(20), waiters);
+        awaitTrue(() -> admission.getQueued() == 1);
+        assertFalse(second.isDone());
+
+        first.close();
+        try (AdmissionControl.Permit permit = second.get(5, TimeUnit.SECONDS)) {
+            assertEquals(1, admission.getInFlight());
+            assertEquals(20, admission.getReserved());
+        }
+        assertEquals(0, admission.getInFlight());
+        assertEquals(0, admission.getQueued());
+    }
+
+    @Test
+    void smallUploadDoesNotOvertakeAQueuedLargeOne() throws Exception {
+        AdmissionControl admission = admission(8, 4, 100, Duration.ofSeconds(10));
+        List<String> order = new CopyOnWriteArrayList<>();
+        AdmissionControl.Permit held = admission.admit(60);
+        // 60 + 90 is over the budget, the large upload waits
+        CompletableFuture<AdmissionControl.Permit> large = CompletableFuture.supplyAsync(() -> {
+            AdmissionControl.Permit permit = admission.admit(90);
+            order.add("large");
+            return permit;
+        }, waiters);
+        awaitTrue(() -> admission.getQueued() == 1);
+        // 60 + 10 would fit, but the large upload is first in line
+        CompletableFuture<AdmissionControl.Permit> small = CompletableFuture.supplyAsync(() -> {
+            AdmissionControl.Permit permit = admission.admit(10);
+            order.add("small");
+            return permit;
+        }, waiters);
+        awaitTrue(() -> admission.getQueued() == 2);
+        Thread.sleep(50);
+        assertFalse(small.isDone());
+
+        held.close();
+        try (AdmissionControl.Permit a = large.get(5, TimeUnit.SECONDS);
+             AdmissionControl.Permit b = small.get(5, TimeUnit.SECONDS)) {
+            assertEquals(List.of("large", "small"), order);
+            assertEquals(100, admission.getReserved());
+        }
+    }
+
+    @Test
+    void backgroundWorkWaitsPastTheQueueBounds() throws Exception {
+        AdmissionControl admission = admission(1, 0, 1_000, Duration.ofMillis(50));
+        AdmissionControl.Permit first = admission.admit(10);
+        CompletableFuture<AdmissionControl.Permit> job =
+                CompletableFuture.supplyAsync(() -> admission.awaitAdmission(10, 1), waiters);
+        awaitTrue(() -> admission.getQueued() == 1);
+        // well past the queue timeout, still waiting
+        Thread.sleep(200);
+        assertFalse(job.isDone());
+
+        first.close();
+        try (AdmissionControl.Permit permit = job.get(5, TimeUnit.SECONDS)) {
+            assertEquals(1, admission.getInFlight());
+        }
+        assertEquals(0, registry.get("docverifier.admission.rejections").counter().count());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
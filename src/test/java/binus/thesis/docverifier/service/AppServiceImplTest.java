@@ -0,0 +1,270 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.common.DocumentExecutors;
+import binus.thesis.docverifier.common.DocumentLoader;
+import binus.thesis.docverifier.common.FontProgramCache;
+import binus.thesis.docverifier.common.LogoDetector;
+import binus.thesis.docverifier.common.OcrEngine;
+import binus.thesis.docverifier.common.RegionTextCache;
+import binus.thesis.docverifier.common.VerificationMetrics;
+import binus.thesis.docverifier.controller.AppController;
+import binus.thesis.docverifier.corpus.CorpusGenerator;
+import binus.thesis.docverifier.corpus.CorpusSpec;
+import binus.thesis.docverifier.corpus.Defect;
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.ParameterTrace;
+import binus.thesis.docverifier.model.ResponseModel;
+import binus.thesis.docverifier.model.VerificationMode;
+import binus.thesis.docverifier.template.CheckPlan;
+import binus.thesis.docverifier.template.TemplateRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AppServiceImplTest {
+    @TempDir
+    Path spoolDirectory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private VerificationResultCache resultCache;
+    private AdmissionControl admission;
+    private UploadSpool spool;
+    private OcrEngine ocrEngine;
+    private AppServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        resultCache = new VerificationResultCache(100, Duration.ofHours(1), registry);
+        admission = new AdmissionControl(2, 0, DataSize.ofBytes(0), 8, DataSize.ofMegabytes(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), registry);
+        spool = new UploadSpool(spoolDirectory.toString(), DataSize.ofMegabytes(100), Duration.ofSeconds(5),
+                registry);
+        ocrEngine = new OcrEngine(false, "", "eng", 300, 1, 1, Duration.ofSeconds(5));
+        service = service(ocrEngine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        ocrEngine.shutdown();
+    }
+
+    private AppServiceImpl service(OcrEngine ocr) throws IOException {
+        DocumentLoader loader = new DocumentLoader(DataSize.ofMegabytes(4), DataSize.ofMegabytes(2), 0, 32,
+                new FontProgramCache(64, registry));
+        return new AppServiceImpl(loader, new DocumentExecutors("platform", Duration.ofSeconds(30)), admission,
+                spool, resultCache, new TemplateRegistry("classpath:doc-templates/", objectMapper), ocr,
+                new RegionTextCache(1_000, registry),
+                new LogoDetector(LogoDetector.DEFAULT_REFERENCE, new DefaultResourceLoader()),
+                new VerificationMetrics(registry), objectMapper, 2, Duration.ofMinutes(1));
+    }
+
+    private static DocumentUpload upload(String requestId, byte[] pdf, VerificationMode mode) {
+        return new DocumentUpload(requestId, "BRD", requestId + ".pdf", pdf.length, new ByteArrayResource(pdf),
+                mode, false);
+    }
+
+    private long loads() {
+        return registry.get("docverifier.document.load").tag("docType", "BRD").timer().count();
+    }
+
+    @Test
+    void cacheHitSkipsTheChecks() throws IOException {
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        ResponseModel first = service.verify(upload("r1", pdf, VerificationMode.FULL));
+        assertNull(first.getErrors());
+        assertNull(first.getSkipped());
+        assertEquals(1, resultCache.size());
+
+        // same bytes under another request id: answered without parsing the document again
+        ResponseModel second = service.verify(upload("r2", pdf, VerificationMode.FULL).withTrace(true));
+        assertEquals("r2", second.getResponseId());
+        assertEquals(first.getParameters(), second.getParameters());
+        assertEquals(1, loads());
+        assertEquals(1, resultCache.getHits());
+        assertEquals(1, registry.get("docverifier.verification")
+                .tags("docType", "BRD", "outcome", "cached").timer().count());
+        assertEquals(first.getParameters().keySet(), second.getTrace().keySet());
+        assertTrue(second.getTrace().values().stream().allMatch(ParameterTrace::isCached));
+    }
+
+    @Test
+    void failedChecksOfAFullRunAreCached() throws IOException {
+        byte[] pdf = CorpusGenerator.generate("BRD",
+                CorpusSpec.builder().defects(Set.of(Defect.NO_COVER_TITLE)).build());
+        ResponseModel first = service.verify(upload("r1", pdf, VerificationMode.FULL));
+        assertEquals(false, first.getParameters().get(CheckPlan.COVER));
+        assertNull(first.getSkipped());
+
+        service.verify(upload("r2", pdf, VerificationMode.FULL));
+        assertEquals(1, loads());
+    }
+
+    @Test
+    void failFastAnswerIsNotCached() throws IOException {
+        byte[] pdf = CorpusGenerator.generate("BRD",
+                CorpusSpec.builder().defects(Set.of(Defect.NO_COVER_TITLE)).build());
+        ResponseModel first = service.verify(upload("r1", pdf, VerificationMode.FAIL_FAST));
+        assertNotNull(first.getSkipped());
+        assertEquals(0, resultCache.size());
+
+        // partial, the next request runs the checks again
+        ResponseModel second = service.verify(upload("r2", pdf, VerificationMode.FAIL_FAST));
+        assertNotNull(second.getSkipped());
+        assertEquals(2, loads());
+        assertEquals(0, resultCache.getHits());
+    }
+
+    @Test
+    void erroredChecksAreNotCached() throws IOException {
+        // a scanned cover whose OCR breaks: the cover check has no verdict
+        OcrEngine broken = new OcrEngine(true, "", "eng", 72, 1, 1, Duration.ofSeconds(5)) {
+            @Override
+            public CompletableFuture<String> recognize(BufferedImage image) {
+                return CompletableFuture.failedFuture(new IOException("OCR unavailable"));
+            }
+        };
+        AppServiceImpl scanned = service(broken);
+        try {
+            byte[] pdf = blankPages(3);
+            ResponseModel first = scanned.verify(upload("r1", pdf, VerificationMode.FULL));
+            assertNotNull(first.getErrors());
+            assertTrue(first.getErrors().contains(CheckPlan.COVER));
+            assertEquals(0, resultCache.size());
+
+            scanned.verify(upload("r2", pdf, VerificationMode.FULL));
+            assertEquals(2, loads());
+        } finally {
+            scanned.shutdown();
+            broken.shutdown();
+        }
+    }
+
+    @Test
+    void batchStreamsOneLinePerDocument() throws Exception {
+        byte[] complete = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        byte[] defective = CorpusGenerator.generate("BRD",
+                CorpusSpec.builder().defects(Set.of(Defect.NO_COVER_TITLE)).build());
+        List<ResponseModel> lines = batch(multipart("/api/v1/doc-verification/batch")
+                .file(part("b1.pdf", complete))
+                .file(part("b2.pdf", defective))
+                .param("requestId", "b1", "b2")
+                .param("docType", "BRD", "BRD"));
+
+        assertEquals(2, lines.size());
+        Map<String, ResponseModel> byId = Map.of(lines.get(0).getResponseId(), lines.get(0),
+                lines.get(1).getResponseId(), lines.get(1));
+        assertNull(byId.get("b1").getError());
+        assertEquals(true, byId.get("b1").getParameters().get(CheckPlan.COVER));
+        assertEquals(false, byId.get("b2").getParameters().get(CheckPlan.COVER));
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void saturatedServiceAnswersEachDocumentWithARejectedLine() throws Exception {
+        byte[] pdf = CorpusGenerator.generate("BRD", CorpusSpec.defaults());
+        List<ResponseModel> lines;
+        // every admission slot taken, nothing may queue
+        try (AdmissionControl.Permit first = admission.admit(0);
+             AdmissionControl.Permit second = admission.admit(0)) {
+            lines = batch(multipart("/api/v1/doc-verification/batch")
+                    .file(part("b1.pdf", pdf))
+                    .file(part("b2.pdf", pdf))
+                    .param("requestId", "b1", "b2")
+                    .param("docType", "BRD", "BRD"));
+        }
+
+        assertEquals(2, lines.size());
+        for (ResponseModel line : lines) {
+            assertTrue(line.getError().startsWith("Rejected: "), line.getError());
+            assertTrue(line.getError().endsWith("retry after 5s"), line.getError());
+            assertEquals(Map.of(), line.getParameters());
+        }
+        assertEquals(0, loads());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void batchWithUnpairedValuesIsABadRequest() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new AppController(service)).build();
+        mvc.perform(multipart("/api/v1/doc-verification/batch")
+                        .file(part("b1.pdf", new byte[]{1}))
+                        .param("requestId", "b1", "b2")
+                        .param("docType", "BRD"))
+                .andExpect(status().isBadRequest());
+        assertSpoolEmpty();
+    }
+
+    // the NDJSON lines of a batch, once the stream is complete
+    private List<ResponseModel> batch(MockMultipartHttpServletRequestBuilder request) throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new AppController(service)).build();
+        MvcResult result = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(30_000);
+        List<ResponseModel> lines = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readValue(line, ResponseModel.class));
+            }
+        }
+        return lines;
+    }
+
+    private static MockMultipartFile part(String fileName, byte[] pdf) {
+        return new MockMultipartFile("docFile", fileName, "application/pdf", pdf);
+    }
+
+    // each spooled document deleted once its line is written
+    private void assertSpoolEmpty() throws IOException {
+        assertEquals(0, spool.getUsed());
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static byte[] blankPages(int count) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < count; i++) {
+                document.addPage(new PDPage());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package binus.thesis.docverifier.service;
+
+import binus.thesis.docverifier.common.VerificationMetrics;
+import binus.thesis.docverifier.controller.JobController;
+import binus.thesis.docverifier.model.DocumentUpload;
+import binus.thesis.docverifier.model.JobModel;
+import binus.thesis.docverifier.model.ResponseModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JobServiceImplTest {
+    @TempDir
+    Path spoolDirectory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // released by the tests that hold a job in its worker
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile Function<DocumentUpload, ResponseModel> verifier = JobServiceImplTest::verified;
+    private UploadSpool spool;
+    private JobServiceImpl jobs;
+
+    // only the job path is exercised, the verification itself is stubbed
+    private final AppService appService = new AppService() {
+        @Override
+        public ResponseModel verifyWhenAdmitted(DocumentUpload upload) {
+            return verifier.apply(upload);
+        }
+
+        @Override
+        public ResponseModel verify(DocumentUpload upload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResponseEntity<ResponseModel> doVerification(MultipartFile docFile, String requestId, String docType,
+                                                            String mode, boolean trace) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResponseBodyEmitter doBatchVerification(List<MultipartFile> docFiles, List<String> requestIds,
+                                                       List<String> docTypes) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spool = new UploadSpool(spoolDirectory.toString(), DataSize.ofMegabytes(1), Duration.ofSeconds(5), registry);
+        jobs = jobs(Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    // one worker and one queued job at most
+    private JobServiceImpl jobs(Duration retention) {
+        return new JobServiceImpl(appService, spool, new VerificationMetrics(registry), 1, 1, retention,
+                Duration.ofSeconds(10), Duration.ofMillis(20));
+    }
+
+    private static ResponseModel verified(DocumentUpload upload) {
+        ResponseModel result = new ResponseModel();
+        result.setResponseId(upload.getRequestId());
+        result.setDocType(upload.getDocType());
+        result.setParameters(new HashMap<>());
+        return result;
+    }
+
+    private ResponseModel held(DocumentUpload upload) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return verified(upload);
+    }
+
+    private static MockMultipartFile part(int size) {
+        return new MockMultipartFile("docFile", "doc.pdf", "application/pdf", new byte[size]);
+    }
+
+    @Test
+    void jobIsPolledUntilDone() throws InterruptedException {
+        verifier = this::held;
+        JobModel submitted = jobs.submit(part(10), "r1", "BRD", null, false);
+        assertEquals("r1", submitted.getRequestId());
+        awaitTrue(() -> jobs.getJob(submitted.getJobId()).getStatus() == JobModel.Status.RUNNING);
+        assertEquals(10, spool.getUsed());
+
+        release.countDown();
+        awaitTrue(() -> jobs.getJob(submitted.getJobId()).getStatus() == JobModel.Status.DONE);
+        JobModel done = jobs.getJob(submitted.getJobId());
+        assertEquals("r1", done.getResult().getResponseId());
+        assertNotNull(done.getCompletedAt());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void failedJobReportsTheErrorAndDeletesItsUpload() throws InterruptedException {
+        verifier = upload -> {
+            // readable while the job runs
+            try (InputStream in = upload.getContent().getInputStream()) {
+                assertEquals(10, in.readAllBytes().length);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new IllegalStateException("broken");
+        };
+        String jobId = jobs.submit(part(10), "r1", "BRD", null, false).getJobId();
+        awaitTrue(() -> jobs.getJob(jobId).getStatus() == JobModel.Status.FAILED);
+        assertEquals("broken", jobs.getJob(jobId).getError());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void fullQueueRejectsTheJobAndDeletesItsUpload() throws InterruptedException {
+        verifier = this::held;
+        String running = jobs.submit(part(10), "r1", "BRD", null, false).getJobId();
+        jobs.submit(part(20), "r2", "BRD", null, false);
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> jobs.submit(part(40), "r3", "BRD", null, false));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(30, spool.getUsed());
+
+        release.countDown();
+        awaitTrue(() -> spool.getUsed() == 0);
+        assertEquals(JobModel.Status.DONE, jobs.getJob(running).getStatus());
+    }
+
+    @Test
+    void unknownModeIsABadRequestAndSpoolsNothing() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> jobs.submit(part(10), "r1", "BRD", "quick", false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(0, spool.getUsed());
+    }
+
+    @Test
+    void finishedJobsArePurgedAfterTheRetention() throws InterruptedException {
+        jobs.shutdown();
+        jobs = jobs(Duration.ZERO);
+        verifier = this::held;
+        String jobId = jobs.submit(part(10), "r1", "BRD", null, false).getJobId();
+        awaitTrue(() -> jobs.getJob(jobId).getStatus() == JobModel.Status.RUNNING);
+        // an unfinished job is kept whatever its age
+        Thread.sleep(100);
+        assertEquals(JobModel.Status.RUNNING, jobs.getJob(jobId).getStatus());
+
+        release.countDown();
+        awaitTrue(() -> {
+            try {
+                jobs.getJob(jobId);
+                return false;
+            } catch (ResponseStatusException e) {
+                return e.getStatusCode() == HttpStatus.NOT_FOUND;
+            }
+        });
+    }
+
+    @Test
+    void subscriberReceivesTheResultWhenTheJobFinishes() throws Exception {
+        verifier = this::held;
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new JobController(jobs)).build();
+        MvcResult submitted = mvc.perform(multipart("/api/v1/doc-verification/jobs")
+                        .file(part(10))
+                        .param("requestId", "r1")
+                        .param("docType", "BRD"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.requestId").value("r1"))
+                .andReturn();
+        String jobId = new ObjectMapper().readTree(submitted.getResponse().getContentAsString())
+                .get("jobId").asText();
+
+        MvcResult events = mvc.perform(get("/api/v1/doc-verification/jobs/{jobId}/events", jobId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        release.countDown();
+        events.getAsyncResult(10_000);
+        String stream = events.getResponse().getContentAsString();
+        assertTrue(stream.contains("event:result"), stream);
+        assertTrue(stream.contains("\"status\":\"DONE\""), stream);
+        assertTrue(stream.contains("\"responseId\":\"r1\""), stream);
+
+        // a late subscriber gets the stored result at once
+        MvcResult late = mvc.perform(get("/api/v1/doc-verification/jobs/{jobId}/events", jobId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        late.getAsyncResult(10_000);
+        assertTrue(late.getResponse().getContentAsString().contains("\"status\":\"DONE\""));
+
+        mvc.perform(get("/api/v1/doc-verification/jobs/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.responseId").value("r1"));
+        mvc.perform(get("/api/v1/doc-verification/jobs/{jobId}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void assertSpoolEmpty() {
+        assertEquals(0, spool.getUsed());
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
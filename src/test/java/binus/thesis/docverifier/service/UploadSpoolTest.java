@@ -0,0 +1,76 @@
+package binus.thesis.docverifier.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSpoolTest {
+    @TempDir
+    Path directory;
+
+    private UploadSpool spool(long maxBytes) throws IOException {
+        return new UploadSpool(directory.toString(), DataSize.ofBytes(maxBytes), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+    }
+
+    private static MockMultipartFile part(int size) {
+        return new MockMultipartFile("docFile", "doc.pdf", "application/pdf", new byte[size]);
+    }
+
+    @Test
+    void spooledUploadIsReadableUntilClosed() throws IOException {
+        UploadSpool spool = spool(1_000);
+        byte[] bytes = {1, 2, 3, 4};
+        UploadSpool.Entry entry = spool.spool(new MockMultipartFile("docFile", "doc.pdf", "application/pdf", bytes),
+                "r1", "BRD");
+        try (InputStream in = entry.getUpload().getContent().getInputStream()) {
+            assertArrayEquals(bytes, in.readAllBytes());
+        }
+        assertEquals(4, entry.getUpload().getSize());
+        assertEquals(4, spool.getUsed());
+
+        entry.close();
+        entry.close();
+        assertEquals(0, spool.getUsed());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void rejectsUploadsBeyondTheBound() throws IOException {
+        UploadSpool spool = spool(100);
+        try (UploadSpool.Entry first = spool.spool(part(60), "r1", "BRD")) {
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                    () -> spool.spool(part(60), "r2", "BRD"));
+            assertEquals(5, e.getRetryAfterSeconds());
+            assertEquals(60, spool.getUsed());
+        }
+        // room again once the first upload is verified
+        try (UploadSpool.Entry second = spool.spool(part(60), "r2", "BRD")) {
+            assertEquals(60, spool.getUsed());
+        }
+    }
+
+    @Test
+    void leftoversOfAnEarlierRunAreDeleted() throws IOException {
+        Path leftover = Files.write(directory.resolve("upload-123.pdf"), new byte[10]);
+        Path other = Files.write(directory.resolve("keep.txt"), new byte[1]);
+        spool(100);
+        assertTrue(Files.notExists(leftover));
+        assertTrue(Files.exists(other));
+    }
+}
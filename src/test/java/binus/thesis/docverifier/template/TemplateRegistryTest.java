@@ -0,0 +1,50 @@
+package binus.thesis.docverifier.template;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TemplateRegistryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadPicksUpEditedTemplatesFromADirectory() throws IOException {
+        Path brd = directory.resolve("brd.json");
+        try (InputStream in = getClass().getResourceAsStream("/doc-templates/brd.json")) {
+            Files.write(brd, in.readAllBytes());
+        }
+        TemplateRegistry registry = new TemplateRegistry(directory.toUri().toString(), new ObjectMapper());
+        String before = registry.find("BRD").getRuleVersion();
+
+        String edited = Files.readString(brd, StandardCharsets.UTF_8).replace("\"version\": \"2\"", "\"version\": \"3\"");
+        Files.writeString(brd, edited, StandardCharsets.UTF_8);
+        registry.reload();
+        assertNotEquals(before, registry.find("BRD").getRuleVersion());
+        assertEquals("3", registry.find("BRD").getRuleVersion().split("-")[0]);
+    }
+
+    @Test
+    void brokenTemplateKeepsTheRunningOnes() throws IOException {
+        Path brd = directory.resolve("brd.json");
+        try (InputStream in = getClass().getResourceAsStream("/doc-templates/brd.json")) {
+            Files.write(brd, in.readAllBytes());
+        }
+        TemplateRegistry registry = new TemplateRegistry(directory.toUri().toString(), new ObjectMapper());
+        String version = registry.find("BRD").getRuleVersion();
+
+        Files.writeString(directory.resolve("uat.json"), "{\"docType\": \"UAT\"}", StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, registry::reload);
+        assertEquals(version, registry.find("BRD").getRuleVersion());
+    }
+}
@@ -0,0 +1,30 @@
+package binus.thesis.docverifier.template;
+
+import binus.thesis.docverifier.common.TableOfContent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TocFormatTest {
+
+    @Test
+    void dottedEntriesMayWrap() {
+        String toc = "1. Introduction ........ 3\n2. Scope of the\nproject ........ 4\n2.1 Out of scope ....... 4";
+        List<TableOfContent.Entry> entries = TocFormat.DOTTED.parse(toc);
+        assertEquals(List.of("1. Introduction", "2. Scope of the\nproject", "2.1 Out of scope"),
+                entries.stream().map(TableOfContent.Entry::getTitle).toList());
+        assertEquals(List.of(3, 4, 4), entries.stream().map(TableOfContent.Entry::getPage).toList());
+        assertEquals("2.1", entries.get(2).getNumber());
+    }
+
+    @Test
+    void numberedLinesTakeOneEntryPerLine() {
+        String toc = "TABLE OF CONTENT\n1 INTRODUCTION ........ 5\n2   PLAN   TESTING ...... 7\nnot an entry\n3 ROLLBACK TEST ..... 9";
+        List<TableOfContent.Entry> entries = TocFormat.NUMBERED_LINES.parse(toc);
+        assertEquals(List.of("1 INTRODUCTION", "2 PLAN TESTING", "3 ROLLBACK TEST"),
+                entries.stream().map(TableOfContent.Entry::getTitle).toList());
+        assertEquals(List.of(5, 7, 9), entries.stream().map(TableOfContent.Entry::getPage).toList());
+    }
+}